@@ -0,0 +1,261 @@
+package fi.kissakala;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Persistent answer store keyed by (solver id, solver version, solver fingerprint, SHA-256 of the input bytes). The
+ * fingerprint is a hash of the solver's compiled classes, see {@link #fingerprint}, so changed code misses the cache
+ * even if the version was not bumped.
+ * Answers are appended to a tab separated file, later lines win. Only lines ending in a line break count, so a torn
+ * last line is ignored. It is cut off before the next answer is appended, which then starts on a line of its own.
+ * <p>
+ * System properties:
+ * <ul>
+ *     <li>{@code everybodycodes.cache}: {@code use} (default), {@code bypass} or {@code verify} (solve anyway and fail if the cached answer differs)</li>
+ *     <li>{@code everybodycodes.cache.dir}: directory of the answer file, defaults to {@code .cache}</li>
+ * </ul>
+ */
+public final class AnswerCache {
+	public enum Mode {
+		USE,
+		BYPASS,
+		VERIFY
+	}
+
+	/**
+	 * @param solverFingerprint Hash of the solver's code, or empty if it has none, e.g. a lambda
+	 */
+	public record Key(String solverId, int solverVersion, String solverFingerprint, String inputHash) {}
+
+	private final Path file;
+	private final Mode mode;
+	private Map<Key, String> answers;
+
+	public AnswerCache(final Path file, final Mode mode) {
+		this.file = file;
+		this.mode = mode;
+	}
+
+	private static final class DefaultHolder {
+		private static final AnswerCache INSTANCE = new AnswerCache(
+			Path.of(System.getProperty("everybodycodes.cache.dir", ".cache")).resolve("answers.tsv"),
+			Mode.valueOf(System.getProperty("everybodycodes.cache", "use").toUpperCase(Locale.ROOT))
+		);
+	}
+
+	public static AnswerCache getDefault() {
+		return DefaultHolder.INSTANCE;
+	}
+
+	/**
+	 * @param solverId Unique id of the solver, e.g. {@code TheKingdomOfAlgorithmia/Quest1Part1}
+	 * @param solverVersion Bump when the solver changes in a way that may change its answer
+	 * @param solverFingerprint See {@link #fingerprint}
+	 * @param inputs Input resources the solver reads
+	 */
+	public static Key key(final String solverId, final int solverVersion, final String solverFingerprint, final String... inputs) throws IOException, URISyntaxException {
+		final List<byte[]> contents = new ArrayList<>(inputs.length);
+		for (final String input : inputs) {
+			contents.add(Utils.readInputAsBytes(input));
+		}
+		return key(solverId, solverVersion, solverFingerprint, contents);
+	}
+	/**
+	 * @param contents Contents of the input resources the solver reads, e.g. from an {@link InputPrefetcher}
+	 */
+	public static Key key(final String solverId, final int solverVersion, final String solverFingerprint, final List<byte[]> contents) {
+		final MessageDigest digest = sha256();
+		for (final byte[] bytes : contents) {
+			digest.update(HexFormat.of().toHexDigits(bytes.length).getBytes(StandardCharsets.US_ASCII));
+			digest.update(bytes);
+		}
+		return new Key(solverId, solverVersion, solverFingerprint, HexFormat.of().formatHex(digest.digest()));
+	}
+
+	/**
+	 * @return SHA-256 of the class files of the top-level class of {@code type} and all classes nested in it, e.g. a
+	 * whole quest. Code the quest calls in other classes is not covered; bump the version for changes there.
+	 */
+	public static String fingerprint(final Class<?> type) {
+		Class<?> topLevel = type;
+		while (topLevel.getDeclaringClass() != null) {
+			topLevel = topLevel.getDeclaringClass();
+		}
+
+		final MessageDigest digest = sha256();
+		final Deque<Class<?>> classes = new ArrayDeque<>(List.of(topLevel));
+		while (!classes.isEmpty()) {
+			final Class<?> current = classes.pop();
+			final String resource = current.getName().replace('.', '/') + ".class";
+			try (final InputStream in = current.getClassLoader().getResourceAsStream(resource)) {
+				if (in == null) {
+					throw new IllegalStateException("No class file for " + current.getName());
+				}
+				digest.update(current.getName().getBytes(StandardCharsets.UTF_8));
+				digest.update(in.readAllBytes());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			// Sorted, as the order of getDeclaredClasses is not specified
+			Arrays.stream(current.getDeclaredClasses()).sorted(Comparator.comparing(Class::getName, Comparator.reverseOrder())).forEach(classes::push);
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	public Mode mode() {
+		return mode;
+	}
+
+	/**
+	 * @return The cached answer, or null if there is none or the cache is bypassed
+	 */
+	public synchronized String get(final Key key) {
+		if (mode == Mode.BYPASS) {
+			return null;
+		}
+		return answers().get(key);
+	}
+
+	/**
+	 * Store the answer computed for {@param key}. In {@link Mode#VERIFY} a differing cached answer is an error.
+	 */
+	public synchronized void put(final Key key, final Object answer) {
+		if (mode == Mode.BYPASS) {
+			return;
+		}
+
+		final String value = String.valueOf(answer);
+		final String previous = answers().get(key);
+		if (value.equals(previous)) {
+			return;
+		}
+		if (previous != null && mode == Mode.VERIFY) {
+			throw new AssertionError("Cached answer for %s differs, cached %s, computed %s".formatted(key, previous, value));
+		}
+
+		answers().put(key, value);
+		try {
+			Files.createDirectories(file.getParent());
+			final String line = String.join("\t", Utils.escapeField(key.solverId()), String.valueOf(key.solverVersion()), key.solverFingerprint(), key.inputHash(), Utils.escapeField(value)) + "\n";
+			truncateTornLine();
+			Files.writeString(file, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Cut the file after its last line break, if a write was cut off. Ending the torn line with a line break instead
+	 * would turn a truncated answer into a valid one.
+	 */
+	private void truncateTornLine() throws IOException {
+		if (!Files.exists(file)) {
+			return;
+		}
+		try (final SeekableByteChannel channel = Files.newByteChannel(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			final ByteBuffer last = ByteBuffer.allocate(1);
+			long end = channel.size();
+			while (end > 0L) {
+				last.clear();
+				channel.position(end - 1L).read(last);
+				if (last.get(0) == '\n') {
+					break;
+				}
+				end--;
+			}
+			if (end < channel.size()) {
+				channel.truncate(end);
+			}
+		}
+	}
+
+	private Map<Key, String> answers() {
+		if (answers == null) {
+			answers = new HashMap<>();
+			if (Files.exists(file)) {
+				try {
+					final String content = Files.readString(file, StandardCharsets.UTF_8);
+					// The part after the last line break is a torn line
+					for (final String line : content.substring(0, content.lastIndexOf('\n') + 1).lines().toList()) {
+						final String[] fields = line.split("\t", -1);
+						if (fields.length != 5) {
+							continue; // Also lines from before fingerprints, which can never match again
+						}
+						try {
+							answers.put(new Key(Utils.unescapeField(fields[0]), Integer.parseInt(fields[1]), fields[2], fields[3]), Utils.unescapeField(fields[4]));
+						} catch (NumberFormatException _) {
+							// Torn or hand-edited line
+						}
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		}
+		return answers;
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public static void test() throws IOException {
+		final Path dir = Files.createTempDirectory("answer-cache");
+		final Path file = dir.resolve("answers.tsv");
+		try {
+			final Key key = new Key("Test/Quest1Part1", 1, "", "abc");
+			final Key otherVersion = new Key("Test/Quest1Part1", 2, "", "abc");
+			final Key otherCode = new Key("Test/Quest1Part1", 1, "f00d", "abc");
+
+			final AnswerCache cache = new AnswerCache(file, Mode.USE);
+			Utils.expect(cache.get(key) == null, true);
+			cache.put(key, "A\tB\\n");
+			cache.put(key, 42);
+			Utils.expect(cache.get(key), "42");
+			Utils.expect(cache.get(otherVersion) == null, true);
+			Utils.expect(cache.get(otherCode) == null, true);
+
+			// Reloaded from disk, with a torn last line that would still split into four fields
+			Files.writeString(file, "Test/Quest1Part1\t2\t\tabc\t12", StandardOpenOption.APPEND);
+			final AnswerCache reloaded = new AnswerCache(file, Mode.USE);
+			Utils.expect(reloaded.get(key), "42");
+			Utils.expect(reloaded.get(otherVersion) == null, true);
+
+			// An answer written after the torn line survives the next reload
+			final Key next = new Key("Test/Quest1Part2", 1, "", "abc");
+			reloaded.put(next, 7);
+			Utils.expect(new AnswerCache(file, Mode.USE).get(next), "7");
+			Utils.expect(new AnswerCache(file, Mode.USE).get(otherVersion) == null, true);
+			Utils.expect(new AnswerCache(file, Mode.BYPASS).get(key) == null, true);
+
+			try {
+				new AnswerCache(file, Mode.VERIFY).put(key, 43);
+				throw new IllegalStateException("Verify should have failed");
+			} catch (AssertionError _) {
+				// expected
+			}
+		} finally {
+			Files.deleteIfExists(file);
+			Files.deleteIfExists(dir);
+		}
+
+		Utils.expect(fingerprint(Mode.class), fingerprint(AnswerCache.class));
+		Utils.expect(fingerprint(AnswerCache.class).equals(fingerprint(Utils.class)), false);
+	}
+}
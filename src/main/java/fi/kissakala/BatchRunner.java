@@ -0,0 +1,238 @@
+package fi.kissakala;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Solves one part for every file in a directory or matching a glob, e.g. {@code fuzz/quest3/*.txt}.
+ * <p>
+ * Files are listed lazily and solved on a work-stealing pool. At most twice the pool size of files are in flight, so
+ * memory stays bounded however many files there are. Every result is written as soon as it completes, one JSON object
+ * per line: {@code {"file":…,"result":…,"readMicros":…,"solveMicros":…}} or {@code {"file":…,"error":…}}.
+ * The file replaces the first input of the solver; any extra inputs are its own resources.
+ * <p>
+ * Files of at least {@code everybodycodes.batch.fileInputBytes} bytes (default 64 MiB) are handed to the solver as a
+ * path with {@link QuestSolver#solveFile}, so solvers that can map their input never read it onto the heap. Their
+ * {@code readMicros} is 0, reading is part of solving.
+ */
+public final class BatchRunner {
+	public record Summary(int files, int failures, long elapsedNanos) {}
+
+	private final Solver solver;
+	private final int parallelism;
+	private final long fileInputBytes;
+
+	BatchRunner(final Solver solver, final int parallelism, final long fileInputBytes) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be positive");
+		}
+		this.solver = solver;
+		this.parallelism = parallelism;
+		this.fileInputBytes = fileInputBytes;
+	}
+
+	public BatchRunner(final Solver solver, final int parallelism) {
+		this(solver, parallelism, Long.getLong("everybodycodes.batch.fileInputBytes", 64L << 20));
+	}
+
+	public BatchRunner(final Solver solver) {
+		this(solver, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Solve every regular file under {@param pattern}, a directory or a glob, writing one line per file to {@param out}
+	 */
+	public Summary run(final String pattern, final Writer out) throws IOException, InterruptedException {
+		final String[] extraInputs = new String[solver.inputs().size() - 1];
+		try {
+			for (int i = 0; i < extraInputs.length; i++) {
+				extraInputs[i] = Utils.readInput(solver.inputs().get(i + 1));
+			}
+		} catch (URISyntaxException e) {
+			throw new IllegalStateException("Invalid input resource of " + solver, e);
+		}
+
+		final int maxInFlight = parallelism * 2;
+		final Semaphore inFlight = new Semaphore(maxInFlight);
+		final AtomicInteger files = new AtomicInteger();
+		final AtomicInteger failures = new AtomicInteger();
+		final AtomicReference<IOException> writeFailure = new AtomicReference<>();
+		final long startTime = System.nanoTime();
+
+		final ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try (final Stream<Path> paths = listFiles(pattern)) {
+			for (final Path path : (Iterable<Path>) paths::iterator) {
+				inFlight.acquire(); // Back-pressure: do not list further ahead than the pool can solve
+				files.incrementAndGet();
+				pool.execute(() -> {
+					try {
+						final String line = solve(path, extraInputs, failures);
+						synchronized (out) {
+							out.write(line);
+							out.write('\n');
+							out.flush();
+						}
+					} catch (IOException e) {
+						writeFailure.compareAndSet(null, e);
+					} finally {
+						inFlight.release();
+					}
+				});
+			}
+			inFlight.acquire(maxInFlight); // Wait for the last files
+		} finally {
+			pool.shutdown();
+		}
+		if (writeFailure.get() != null) {
+			throw writeFailure.get();
+		}
+
+		return new Summary(files.get(), failures.get(), System.nanoTime() - startTime);
+	}
+
+	private String solve(final Path path, final String[] extraInputs, final AtomicInteger failures) {
+		final String file = json(path.toString());
+		try {
+			final long startTime = System.nanoTime();
+			final long readTime;
+			final Object result;
+			if (Files.size(path) >= fileInputBytes) {
+				readTime = startTime;
+				result = solver.solveFile(path, extraInputs);
+			}
+			else {
+				final String[] inputs = Solver.withFirstInput(path, extraInputs);
+				readTime = System.nanoTime();
+				result = solver.solve(inputs);
+			}
+			final long solveTime = System.nanoTime();
+
+			return "{\"file\":%s,\"result\":%s,\"readMicros\":%d,\"solveMicros\":%d}".formatted(
+				file, json(String.valueOf(result)), (readTime - startTime) / 1_000L, (solveTime - readTime) / 1_000L);
+		} catch (Exception | AssertionError e) {
+			failures.incrementAndGet();
+			return "{\"file\":%s,\"error\":%s}".formatted(file, json(String.valueOf(e)));
+		}
+	}
+
+	/**
+	 * Regular files in the directory {@param pattern}, or else under the longest leading part of the glob without
+	 * wildcards, in directory order
+	 */
+	private static Stream<Path> listFiles(final String pattern) throws IOException {
+		final Path directory = Path.of(pattern);
+		if (Files.isDirectory(directory)) {
+			return Files.list(directory).filter(Files::isRegularFile);
+		}
+
+		final int wildcard = indexOfWildcard(pattern);
+		if (wildcard < 0) {
+			return Stream.of(directory);
+		}
+		final int separator = pattern.lastIndexOf('/', wildcard);
+		final Path base = separator < 0 ? Path.of("") : Path.of(pattern.substring(0, separator + 1));
+		final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+		return Files.walk(base)
+			.filter(path -> matcher.matches(path) && Files.isRegularFile(path));
+	}
+
+	private static int indexOfWildcard(final String pattern) {
+		for (int i = 0; i < pattern.length(); i++) {
+			if ("*?[{".indexOf(pattern.charAt(i)) >= 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static String json(final String value) {
+		final StringBuilder result = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			switch (c) {
+				case '"' -> result.append("\\\"");
+				case '\\' -> result.append("\\\\");
+				case '\n' -> result.append("\\n");
+				case '\r' -> result.append("\\r");
+				case '\t' -> result.append("\\t");
+				default -> {
+					if (c < 0x20) {
+						result.append("\\u%04x".formatted((int) c));
+					} else {
+						result.append(c);
+					}
+				}
+			}
+		}
+		return result.append('"').toString();
+	}
+
+	public static void test() throws IOException, InterruptedException {
+		final Path dir = Files.createTempDirectory("batch-runner");
+		final List<Path> files = List.of(dir.resolve("a.txt"), dir.resolve("b.txt"), dir.resolve("c.in"), dir.resolve("fail.txt"));
+		try {
+			Files.writeString(files.get(0), "AB");
+			Files.writeString(files.get(1), "A\"B\"C");
+			Files.writeString(files.get(2), "ABCD");
+			Files.writeString(files.get(3), "");
+
+			final BatchRunner runner = new BatchRunner(Solver.of("Test", 1, 1, 1, inputs -> {
+				if (inputs[0].isEmpty()) {
+					throw new IllegalArgumentException("Empty input");
+				}
+				return inputs[0].length() + inputs[0].substring(1, 2);
+			}), 2);
+
+			final StringWriter all = new StringWriter();
+			final Summary summary = runner.run(dir.toString(), all);
+			Utils.expect(summary.files(), 4);
+			Utils.expect(summary.failures(), 1);
+
+			final String[] lines = all.toString().split("\n");
+			Arrays.sort(lines);
+			Utils.expect(lines.length, 4);
+			Utils.expect(lines[0].matches("\\{\"file\":\".*a\\.txt\",\"result\":\"2B\",\"readMicros\":\\d+,\"solveMicros\":\\d+}"), true);
+			Utils.expect(lines[1].matches("\\{\"file\":\".*b\\.txt\",\"result\":\"5\\\\\"\",.*"), true);
+			Utils.expect(lines[3].matches("\\{\"file\":\".*fail\\.txt\",\"error\":\"java.lang.IllegalArgumentException: Empty input\"}"), true);
+
+			final StringWriter globbed = new StringWriter();
+			Utils.expect(runner.run(dir + "/*.in", globbed).files(), 1);
+			Utils.expect(globbed.toString().contains("\"result\":\"4B\""), true);
+
+			// Files over the threshold go to the solver as a path
+			final BatchRunner byPath = new BatchRunner(Solver.of("Test", 1, 1, 1, new Solver.SolveFunction() {
+				@Override
+				public Object solve(final String... inputs) {
+					return "text";
+				}
+
+				@Override
+				public Object solveFile(final Path input, final String... extraInputs) {
+					return "file " + input.getFileName();
+				}
+			}), 1, 3L);
+			final StringWriter large = new StringWriter();
+			byPath.run(dir + "/*.txt", large);
+			Utils.expect(large.toString().contains("\"result\":\"text\""), true); // a.txt
+			Utils.expect(large.toString().contains("\"result\":\"file b.txt\",\"readMicros\":0,"), true);
+		} finally {
+			for (final Path file : files) {
+				Files.deleteIfExists(file);
+			}
+			Files.deleteIfExists(dir);
+		}
+	}
+}
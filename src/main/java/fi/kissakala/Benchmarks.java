@@ -0,0 +1,180 @@
+package fi.kissakala;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.function.IntUnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import static fi.kissakala.Utils.*;
+
+/**
+ * Ad-hoc benchmarks for comparing implementations on large inputs. Each benchmark is run a few times so the later
+ * rounds show JIT-compiled numbers.
+ */
+public class Benchmarks {
+	private static final int ROUNDS = 3;
+
+	static void main() throws Exception {
+		IO.println("=== Parsing ===");
+		final String quest6Input = generateBranchRows(1_000_000, 42L);
+		for (int round = 1; round <= ROUNDS; round++) {
+			run("Regex, 10^6 rows (round %d)".formatted(round), () -> parseBranchRowsWithRegex(quest6Input));
+			run("Cursor, 10^6 rows (round %d)".formatted(round), () -> parseBranchRowsWithCursor(quest6Input));
+		}
+
+		IO.println("=== Race plans ===");
+		final char[] track = generateTrack(200, 7L);
+		final List<char[]> plans = generatePlans(200_000, 11, 8L);
+		final RaceSimulator simulator = new RaceSimulator(track, 10);
+		for (int round = 1; round <= ROUNDS; round++) {
+			run("One plan at a time, 2*10^5 plans (round %d)".formatted(round), () -> plansPerSecond(plans.size(), () -> {
+				long checksum = 0L;
+				for (final char[] plan : plans) {
+					checksum += simulator.essence(plan);
+				}
+				return checksum;
+			}));
+			run("Batched, 2*10^5 plans (round %d)".formatted(round), () -> plansPerSecond(plans.size(), () -> Arrays.stream(simulator.essence(plans)).sum()));
+		}
+
+		IO.println("=== Winning plans ===");
+		final RaceSimulator longRace = new RaceSimulator(track, 2024);
+		final List<char[]> permutations = generatePermutations('+', 5, '-', 3, '=', 3).stream().map(String::toCharArray).toList();
+		final long rival = longRace.essence("--=+=+=-+++".toCharArray());
+		for (int round = 1; round <= ROUNDS; round++) {
+			run("Every plan simulated, 5/3/3 actions (round %d)".formatted(round), () -> Arrays.stream(longRace.essence(permutations)).filter(essence -> essence > rival).count());
+			run("Branch and bound, 5/3/3 actions (round %d)".formatted(round), () -> longRace.countPlansAbove(rival, 5, 3, 3));
+		}
+		run("Branch and bound, 8/6/6 actions", () -> longRace.countPlansAbove(longRace.essence("-=+-=+=-++=+-+=-+=+-".toCharArray()), 8, 6, 6));
+
+		IO.println("=== Tree building ===");
+		for (int round = 1; round <= ROUNDS; round++) {
+			IO.println("Round " + round);
+			treeBuilding(1_000_000);
+		}
+	}
+
+	/**
+	 * Builds a tree of {@param nodes} where node i hangs under a pseudo-random earlier node
+	 */
+	private static void treeBuilding(final int nodes) throws Exception {
+		final IntUnaryOperator parentOf = i -> (int) ((i * 2_654_435_761L) % i);
+		run("HashMap and Node.addChild, 10^6 nodes", () -> {
+			// Nodes found by value, as when linking parsed rows
+			final Map<Integer, Tree.Node<Integer>> all = new HashMap<>();
+			for (int i = 1; i < nodes; i++) {
+				final Tree.Node<Integer> child = all.computeIfAbsent(i, Tree.Node::new);
+				all.computeIfAbsent(parentOf.applyAsInt(i), Tree.Node::new).addChild(child);
+			}
+			return Tree.withRoot(all.get(0)).root().getSubtreeSize();
+		});
+		run("ConcurrentBuilder, 10^6 nodes", () -> {
+			final Tree.ConcurrentBuilder<Integer> builder = new Tree.ConcurrentBuilder<>();
+			IntStream.range(1, nodes).parallel().forEach(i -> builder.link(parentOf.applyAsInt(i), i));
+			return builder.freeze(0).root().getSubtreeSize();
+		});
+	}
+
+	private static String plansPerSecond(final int plans, final Callable<Long> evaluation) throws Exception {
+		final long startTime = System.nanoTime();
+		final long checksum = evaluation.call();
+		return "%,.0f plans/s (checksum %d)".formatted(plans / ((System.nanoTime() - startTime) / 1e9), checksum);
+	}
+
+	private static char[] generateTrack(final int length, final long seed) {
+		final Random random = new Random(seed);
+		final char[] track = new char[length];
+		track[0] = 'S';
+		for (int i = 1; i < length; i++) {
+			track[i] = "+-=====".charAt(random.nextInt(7));
+		}
+		return track;
+	}
+	private static List<char[]> generatePlans(final int count, final int length, final long seed) {
+		final Random random = new Random(seed);
+		final List<char[]> plans = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			final char[] plan = new char[length];
+			for (int j = 0; j < length; j++) {
+				plan[j] = "+-=".charAt(random.nextInt(3));
+			}
+			plans.add(plan);
+		}
+		return plans;
+	}
+
+	/**
+	 * Quest 6 style rows, e.g. {@code ABC:DEF,GH,@}
+	 */
+	private static String generateBranchRows(final int rows, final long seed) {
+		final Random random = new Random(seed);
+		final StringBuilder builder = new StringBuilder(rows * 24);
+
+		for (int row = 0; row < rows; row++) {
+			appendIdentifier(builder, random);
+			builder.append(':');
+
+			final int links = 1 + random.nextInt(4);
+			for (int link = 0; link < links; link++) {
+				if (link > 0) {
+					builder.append(',');
+				}
+				if (random.nextInt(5) == 0) {
+					builder.append('@');
+				}
+				else {
+					appendIdentifier(builder, random);
+				}
+			}
+			builder.append('\n');
+		}
+
+		return builder.toString();
+	}
+	private static void appendIdentifier(final StringBuilder builder, final Random random) {
+		final int length = 2 + random.nextInt(3);
+		for (int i = 0; i < length; i++) {
+			builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+		}
+	}
+
+	/**
+	 * The previous parsing path: line split, a {@link Matcher} per row, then {@link String#split(String)} on the links
+	 * @return Checksum over the interned ids
+	 */
+	private static long parseBranchRowsWithRegex(final String input) {
+		final Pattern pattern = Pattern.compile("^([A-Z]+):([A-Z,@]+)$");
+		final SymbolTable symbols = new SymbolTable();
+
+		long checksum = 0L;
+		for (final String row : LINE_BREAK_PATTERN.split(input)) {
+			final Matcher matcher = matchInput(row, pattern);
+			checksum += symbols.intern(matcher.group(1));
+			for (final String link : matcher.group(2).split(",")) {
+				checksum += "@".equals(link) ? -1 : symbols.intern(link);
+			}
+		}
+		return checksum;
+	}
+
+	/**
+	 * @return Checksum over the interned ids
+	 */
+	private static long parseBranchRowsWithCursor(final String input) {
+		final SymbolTable symbols = new SymbolTable();
+		final Cursor cursor = new Cursor(input);
+
+		long checksum = 0L;
+		while (cursor.hasMore()) {
+			checksum += cursor.readIdent(symbols);
+			cursor.expect(':');
+			do {
+				checksum += cursor.tryConsume('@') ? -1 : cursor.readIdent(symbols);
+			} while (cursor.tryConsume(','));
+			cursor.expectEndOfLine().skipLineBreaks();
+		}
+		return checksum;
+	}
+}
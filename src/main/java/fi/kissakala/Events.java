@@ -0,0 +1,49 @@
+package fi.kissakala;
+
+import jdk.jfr.*;
+
+/**
+ * Custom JFR events for the parse and solve phases of each quest part.
+ * Record with e.g. {@code java -XX:StartFlightRecording=filename=run.jfr ...} and look for the "Everybody Codes" category.
+ * When recording is off the events are disabled and cost next to nothing.
+ */
+public final class Events {
+	private Events() {}
+
+	@Name("fi.kissakala.Parse")
+	@Label("Parse")
+	@Description("Reading and pre-parsing an input resource")
+	@Category("Everybody Codes")
+	@StackTrace(false)
+	public static final class ParseEvent extends Event {
+		@Label("Task")
+		public String task;
+
+		@Label("Resource")
+		public String resource;
+
+		@Label("Input Size")
+		@DataAmount
+		public long inputSize;
+
+		@Label("Rows")
+		public long rows;
+	}
+
+	@Name("fi.kissakala.Solve")
+	@Label("Solve")
+	@Description("A task run through Utils.run, including the parse phases of its inputs")
+	@Category("Everybody Codes")
+	@StackTrace(false)
+	public static final class SolveEvent extends Event {
+		@Label("Task")
+		public String task;
+
+		@Label("Iterations")
+		@Description("Domain specific iteration count reported by the solver, e.g. rounds or plans evaluated")
+		public long iterations;
+
+		@Label("Result")
+		public String result;
+	}
+}
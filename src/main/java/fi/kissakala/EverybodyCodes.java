@@ -1,14 +1,94 @@
 package fi.kissakala;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * <a href="https://everybody.codes/home">Everybody codes</a>
+ * <p>
+ * Usage:
+ * <ul>
+ *     <li>No arguments: run all tests and solve every quest</li>
+ *     <li>{@code <selector>...}: solve only the selected parts, e.g. {@code Quest7}, {@code Quest7Part3} or {@code TheKingdomOfAlgorithmia/Quest7Part3}</li>
+ *     <li>{@code --daemon [socket]}: serve solve requests over a Unix domain socket, see {@link SolverDaemon}</li>
+ *     <li>{@code --batch <part> <directory|glob>}: solve one part for many input files, streaming JSON lines, see {@link BatchRunner}</li>
+ *     <li>{@code --generate <quest> <size> <seed>}: write a synthetic input to standard output, see {@link InputGenerator}</li>
+ *     <li>{@code --shard-worker}: count one shard of a job for another JVM, see {@link ShardRunner}</li>
+ *     <li>{@code --self-test}: run the tests, including the slower ones that use files, sockets and other JVMs</li>
+ * </ul>
  */
 public class EverybodyCodes {
-	static void main() {
-		Utils.run("Utils tests", Utils::testAll);
-		IO.println();
+	static void main(final String[] args) throws Exception {
+		if (args.length > 0 && "--daemon".equals(args[0])) {
+			final Path socket = args.length > 1 ? Path.of(args[1]) : SolverDaemon.DEFAULT_SOCKET;
+			try (final SolverDaemon daemon = new SolverDaemon(socket, QuestRegistry.solvers())) {
+				IO.println("Listening on " + socket);
+				daemon.serve();
+			}
+			return;
+		}
+
+		if (args.length > 0 && "--batch".equals(args[0])) {
+			if (args.length != 3) {
+				throw new IllegalArgumentException("Usage: --batch <part> <directory|glob>");
+			}
+			final List<Solver> matching = QuestRegistry.solvers().stream().filter(solver -> solver.matches(args[1])).toList();
+			if (matching.size() != 1) {
+				throw new IllegalArgumentException("Batch mode needs exactly one part, %s selects %d".formatted(args[1], matching.size()));
+			}
+
+			final Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+			final long[] counters = WorkCounter.snapshot();
+			final BatchRunner.Summary summary = new BatchRunner(matching.getFirst()).run(args[2], out);
+			System.err.printf("%d files, %d failed, %d ms%n", summary.files(), summary.failures(), summary.elapsedNanos() / 1_000_000L);
+			WorkCounter.report(counters, summary.elapsedNanos()).forEach(System.err::println);
+			return;
+		}
+
+		if (args.length > 0 && "--shard-worker".equals(args[0])) {
+			final Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+			ShardRunner.work(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)), out);
+			return;
+		}
+
+		if (args.length > 0 && "--generate".equals(args[0])) {
+			if (args.length != 4) {
+				throw new IllegalArgumentException("Usage: --generate <quest> <size> <seed>");
+			}
+			final Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+			InputGenerator.generate(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Long.parseLong(args[3]), out);
+			out.flush();
+			return;
+		}
+
+		if (args.length > 0 && "--self-test".equals(args[0])) {
+			Utils.run("Utils tests", Utils::testAll);
+			Utils.run("Self tests", Utils::selfTest);
+			return;
+		}
+
+		if (args.length == 0) {
+			Utils.run("Utils tests", Utils::testAll);
+			IO.println();
+
+			IO.println("=== The Kingdom of Algorithmia ===");
+			Utils.run("The Kingdom of Algorithmia", () -> TheKingdomOfAlgorithmia.solve());
+			return;
+		}
 
-		IO.println("=== The Kingdom of Algorithmia ===");
-		Utils.run("The Kingdom of Algorithmia", TheKingdomOfAlgorithmia::solve);
+		final List<Solver> solvers = QuestRegistry.solvers();
+		for (final String selector : args) {
+			if (solvers.stream().noneMatch(solver -> solver.matches(selector))) {
+				throw new IllegalArgumentException("Unknown quest or part: " + selector);
+			}
+		}
+		Utils.run("Selected parts", () -> QuestRegistry.solve(solver -> Arrays.stream(args).anyMatch(solver::matches)));
 	}
-}
\ No newline at end of file
+}
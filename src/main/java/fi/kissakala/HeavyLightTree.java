@@ -0,0 +1,254 @@
+package fi.kissakala;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Heavy-light decomposition of a {@link Tree} for aggregate queries along paths: sum, minimum and maximum of a
+ * per-node weight and the number of marked nodes. Weights and marks can be changed one node at a time.
+ * <p>
+ * Every node continues the chain of the parent whose largest subtree it is, so a path crosses O(log n) chains. The
+ * nodes are laid out chain by chain in one array, and a segment tree over that array answers each chain's part of
+ * the path in O(log n). Queries and updates are O(log² n) instead of the O(path length) of folding over
+ * {@link Tree#getPath}. Changes to the tree's structure after construction are not seen.
+ */
+public final class HeavyLightTree<T> {
+	/**
+	 * Aggregates over the {@code nodes} nodes of a path, both ends included
+	 */
+	public record Aggregate(int nodes, long sum, long min, long max, int marked) {}
+
+	private final Map<Tree.Node<T>, Integer> ids = new IdentityHashMap<>();
+	private final int[] parent;
+	private final int[] depth;
+	private final int[] head; // Topmost node of the node's chain
+	private final int[] position; // Index of the node in the segment tree leaves
+
+	// Iterative segment tree: leaves at [n, 2n), node i aggregates 2i and 2i + 1
+	private final int n;
+	private final long[] sum;
+	private final long[] min;
+	private final long[] max;
+	private final int[] marked;
+
+	/**
+	 * @param weight Initial weight of each node
+	 * @param isMarked Whether each node is initially counted by {@link Aggregate#marked()}
+	 */
+	public HeavyLightTree(final Tree<T> tree, final ToLongFunction<? super T> weight, final Predicate<? super T> isMarked) {
+		final List<Tree.Node<T>> nodes = new ArrayList<>();
+		tree.visitPreOrder(node -> {
+			ids.put(node, nodes.size());
+			nodes.add(node);
+		});
+		n = nodes.size();
+
+		parent = new int[n];
+		depth = new int[n];
+		parent[0] = -1;
+		for (int id = 1; id < n; id++) {
+			parent[id] = ids.get(nodes.get(id).getParent());
+			depth[id] = depth[parent[id]] + 1;
+		}
+
+		// Pre-order puts children after their parent, so sizes and heavy children fill in backwards
+		final int[] size = new int[n];
+		final int[] heavy = new int[n];
+		Arrays.fill(heavy, -1);
+		for (int id = n - 1; id >= 0; id--) {
+			size[id]++;
+			if (id > 0) {
+				final int p = parent[id];
+				size[p] += size[id];
+				if (heavy[p] < 0 || size[id] > size[heavy[p]]) {
+					heavy[p] = id;
+				}
+			}
+		}
+
+		// Lay out each chain contiguously, starting new chains at the light children
+		head = new int[n];
+		position = new int[n];
+		final Deque<Integer> chains = new ArrayDeque<>();
+		chains.push(0);
+		int next = 0;
+		while (!chains.isEmpty()) {
+			final int chainHead = chains.pop();
+			for (int id = chainHead; id >= 0; id = heavy[id]) {
+				head[id] = chainHead;
+				position[id] = next++;
+				for (Tree.Node<T> child = nodes.get(id).getFirstChild(); child != null; child = child.getNextSibling()) {
+					final int childId = ids.get(child);
+					if (childId != heavy[id]) {
+						chains.push(childId);
+					}
+				}
+			}
+		}
+
+		sum = new long[2 * n];
+		min = new long[2 * n];
+		max = new long[2 * n];
+		marked = new int[2 * n];
+		for (int id = 0; id < n; id++) {
+			final int leaf = n + position[id];
+			final long w = weight.applyAsLong(nodes.get(id).getValue());
+			sum[leaf] = w;
+			min[leaf] = w;
+			max[leaf] = w;
+			marked[leaf] = isMarked.test(nodes.get(id).getValue()) ? 1 : 0;
+		}
+		for (int i = n - 1; i > 0; i--) {
+			pull(i);
+		}
+	}
+
+	private void pull(final int i) {
+		sum[i] = sum[2 * i] + sum[2 * i + 1];
+		min[i] = Math.min(min[2 * i], min[2 * i + 1]);
+		max[i] = Math.max(max[2 * i], max[2 * i + 1]);
+		marked[i] = marked[2 * i] + marked[2 * i + 1];
+	}
+
+	private int id(final Tree.Node<T> node) {
+		final Integer id = ids.get(node);
+		if (id == null) {
+			throw new IllegalArgumentException("Node not in the decomposed tree: " + node);
+		}
+		return id;
+	}
+
+	public void setWeight(final Tree.Node<T> node, final long weight) {
+		int i = n + position[id(node)];
+		sum[i] = weight;
+		min[i] = weight;
+		max[i] = weight;
+		for (i >>= 1; i > 0; i >>= 1) {
+			pull(i);
+		}
+	}
+
+	public void setMarked(final Tree.Node<T> node, final boolean isMarked) {
+		int i = n + position[id(node)];
+		marked[i] = isMarked ? 1 : 0;
+		for (i >>= 1; i > 0; i >>= 1) {
+			marked[i] = marked[2 * i] + marked[2 * i + 1];
+		}
+	}
+
+	/**
+	 * @return Aggregates over the path from {@param a} to {@param b}, both included
+	 */
+	public Aggregate aggregate(final Tree.Node<T> a, final Tree.Node<T> b) {
+		int u = id(a);
+		int v = id(b);
+		final Accumulator result = new Accumulator();
+		while (head[u] != head[v]) {
+			if (depth[head[u]] < depth[head[v]]) {
+				final int swap = u;
+				u = v;
+				v = swap;
+			}
+			result.add(position[head[u]], position[u]);
+			u = parent[head[u]];
+		}
+		result.add(Math.min(position[u], position[v]), Math.max(position[u], position[v]));
+		return new Aggregate(result.nodes, result.sum, result.min, result.max, result.marked);
+	}
+
+	public long sum(final Tree.Node<T> a, final Tree.Node<T> b) {
+		return aggregate(a, b).sum();
+	}
+
+	public long min(final Tree.Node<T> a, final Tree.Node<T> b) {
+		return aggregate(a, b).min();
+	}
+
+	public long max(final Tree.Node<T> a, final Tree.Node<T> b) {
+		return aggregate(a, b).max();
+	}
+
+	public int countMarked(final Tree.Node<T> a, final Tree.Node<T> b) {
+		return aggregate(a, b).marked();
+	}
+
+	private final class Accumulator {
+		private int nodes;
+		private long sum;
+		private long min = Long.MAX_VALUE;
+		private long max = Long.MIN_VALUE;
+		private int marked;
+
+		/**
+		 * Add the leaves {@code [from, to]}
+		 */
+		private void add(final int from, final int to) {
+			nodes += to - from + 1;
+			for (int l = from + n, r = to + n + 1; l < r; l >>= 1, r >>= 1) {
+				if ((l & 1) == 1) {
+					addNode(l++);
+				}
+				if ((r & 1) == 1) {
+					addNode(--r);
+				}
+			}
+		}
+
+		private void addNode(final int i) {
+			sum += HeavyLightTree.this.sum[i];
+			min = Math.min(min, HeavyLightTree.this.min[i]);
+			max = Math.max(max, HeavyLightTree.this.max[i]);
+			marked += HeavyLightTree.this.marked[i];
+		}
+	}
+
+	public static void test() {
+		final Tree<Integer> small = Tree.withRoot(1);
+		final Tree.Node<Integer> two = small.root().addChild(2);
+		final Tree.Node<Integer> three = small.root().addChild(3);
+		final Tree.Node<Integer> four = two.addChild(4);
+		final Tree.Node<Integer> five = two.addChild(5);
+		final HeavyLightTree<Integer> paths = new HeavyLightTree<>(small, Integer::longValue, value -> value % 2 == 1);
+		Utils.expect(paths.aggregate(four, three), new Aggregate(4, 10L, 1L, 4L, 2));
+		Utils.expect(paths.aggregate(five, five), new Aggregate(1, 5L, 5L, 5L, 1));
+		paths.setWeight(small.root(), -7L);
+		paths.setMarked(three, false);
+		Utils.expect(paths.aggregate(three, four), new Aggregate(4, 2L, -7L, 4L, 1));
+		Utils.expect(paths.sum(four, five), 11L);
+
+		// Random trees deep enough for many chains, against folding over Tree.getPath
+		final Random random = new Random(48L);
+		for (int round = 0; round < 5; round++) {
+			final List<Tree.Node<Integer>> nodes = new ArrayList<>();
+			final Tree<Integer> tree = Tree.withRoot(random.nextInt(100));
+			nodes.add(tree.root());
+			for (int i = 1; i < 2_000; i++) {
+				// Mostly near the newest nodes, so there are long paths
+				final int parent = Math.max(0, nodes.size() - 1 - random.nextInt(round == 0 ? nodes.size() : 20));
+				nodes.add(nodes.get(parent).addChild(random.nextInt(100) - 50));
+			}
+
+			final Map<Tree.Node<Integer>, Long> weights = new IdentityHashMap<>();
+			nodes.forEach(node -> weights.put(node, (long) node.getValue()));
+			final HeavyLightTree<Integer> decomposition = new HeavyLightTree<>(tree, Integer::longValue, value -> value > 0);
+			for (int query = 0; query < 300; query++) {
+				if (query % 3 == 0) {
+					final Tree.Node<Integer> node = nodes.get(random.nextInt(nodes.size()));
+					final long weight = random.nextInt(1_000) - 500;
+					weights.put(node, weight);
+					decomposition.setWeight(node, weight);
+				}
+
+				final Tree.Node<Integer> a = nodes.get(random.nextInt(nodes.size()));
+				final Tree.Node<Integer> b = nodes.get(random.nextInt(nodes.size()));
+				final List<Tree.Node<Integer>> path = tree.getPath(a, b);
+				Utils.expect(decomposition.aggregate(a, b), new Aggregate(path.size(),
+					path.stream().mapToLong(weights::get).sum(),
+					path.stream().mapToLong(weights::get).min().orElseThrow(),
+					path.stream().mapToLong(weights::get).max().orElseThrow(),
+					(int) path.stream().filter(node -> node.getValue() > 0).count()));
+			}
+		}
+	}
+}
@@ -0,0 +1,395 @@
+package fi.kissakala;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+import static fi.kissakala.Utils.*;
+
+/**
+ * Seeded, deterministic inputs in the formats of {@link TheKingdomOfAlgorithmia} quests, scaled far beyond the puzzle
+ * inputs for benchmarks and scaling curves. The same quest, size and seed always give the same text.
+ * <p>
+ * Inputs are written row by row to an {@link Appendable}, so even a 10k x 10k mining map can be streamed to a file.
+ * What {@code size} means depends on the quest, see {@link #generate}.
+ */
+public final class InputGenerator {
+	private InputGenerator() {}
+
+	/**
+	 * @param size Quest 1: creatures, 2: rows of the rune grid, 3: side of the mining map, 4: nails, 5: dance rows,
+	 *             6: tree nodes, 7: knights, 8: upper bound of the block count, 9: sparkballs, 10: grids per side of the
+	 *             wall, 11: termite categories
+	 */
+	public static void generate(final int quest, final int size, final long seed, final Appendable out) throws IOException {
+		final Random random = new Random(seed);
+		switch (quest) {
+			case 1 -> quest1(size, random, out);
+			case 2 -> quest2(size, random, out);
+			case 3 -> quest3(size, random, out);
+			case 4 -> numbers(size, 1, 1_000_000, random, out);
+			case 5 -> quest5(size, random, out);
+			case 6 -> quest6(size, random, out);
+			case 7 -> quest7(size, random, out);
+			case 8 -> out.append(String.valueOf(1 + random.nextInt(size))); // Part 1 parses the whole input
+			case 9 -> numbers(size, 10_000, 200_000, random, out);
+			case 10 -> quest10(size, random, out);
+			case 11 -> quest11(size, random, out);
+			default -> throw new IllegalArgumentException("No generator for quest " + quest);
+		}
+	}
+
+	public static String generate(final int quest, final int size, final long seed) {
+		final StringBuilder builder = new StringBuilder();
+		try {
+			generate(quest, size, seed, builder);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // StringBuilder does not throw
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Unique identifier for {@param index}: A, B, ..., Z, AA, AB, ...
+	 */
+	private static String name(final int index) {
+		final StringBuilder name = new StringBuilder();
+		for (int i = index + 1; i > 0; i = (i - 1) / 26) {
+			name.append(ALPHABET.charAt((i - 1) % 26));
+		}
+		return name.reverse().toString();
+	}
+
+	private static void quest1(final int creatures, final Random random, final Appendable out) throws IOException {
+		final StringBuilder row = new StringBuilder(Math.min(creatures, 1 << 16));
+		for (int i = 0; i < creatures; i++) {
+			row.append("ABCDx".charAt(random.nextInt(5)));
+			if (row.length() == 1 << 16) {
+				out.append(row);
+				row.setLength(0);
+			}
+		}
+		out.append(row).append('\n');
+	}
+
+	/**
+	 * Rune words followed by a square grid of letters with the words planted in both directions
+	 */
+	private static void quest2(final int rows, final Random random, final Appendable out) throws IOException {
+		final String[] words = new String[8];
+		for (int i = 0; i < words.length; i++) {
+			final char[] word = new char[3 + random.nextInt(4)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = ALPHABET.charAt(random.nextInt(26));
+			}
+			words[i] = new String(word);
+		}
+		out.append("WORDS:").append(String.join(",", words)).append("\n\n");
+
+		final char[] row = new char[rows];
+		for (int y = 0; y < rows; y++) {
+			for (int x = 0; x < row.length; x++) {
+				row[x] = ALPHABET.charAt(random.nextInt(26));
+			}
+			for (int x = random.nextInt(8); x + 6 < row.length; x += 8 + random.nextInt(16)) {
+				final String word = words[random.nextInt(words.length)];
+				final boolean reversed = random.nextBoolean();
+				for (int i = 0; i < word.length(); i++) {
+					row[x + i] = word.charAt(reversed ? word.length() - 1 - i : i);
+				}
+			}
+			out.append(new String(row)).append('\n');
+		}
+	}
+
+	/**
+	 * Blobs of earth: value noise on a coarse lattice, so areas are deep enough for the depth to matter
+	 */
+	private static void quest3(final int side, final Random random, final Appendable out) throws IOException {
+		final int cell = 32;
+		final int lattice = side / cell + 2;
+		final float[] noise = new float[lattice * lattice];
+		for (int i = 0; i < noise.length; i++) {
+			noise[i] = random.nextFloat();
+		}
+
+		final char[] row = new char[side];
+		for (int y = 0; y < side; y++) {
+			final int ly = y / cell;
+			final float fy = (y % cell) / (float) cell;
+			for (int x = 0; x < side; x++) {
+				final int lx = x / cell;
+				final float fx = (x % cell) / (float) cell;
+				final float top = noise[ly * lattice + lx] * (1 - fx) + noise[ly * lattice + lx + 1] * fx;
+				final float bottom = noise[(ly + 1) * lattice + lx] * (1 - fx) + noise[(ly + 1) * lattice + lx + 1] * fx;
+				final boolean border = x == 0 || y == 0 || x == side - 1 || y == side - 1;
+				row[x] = !border && top * (1 - fy) + bottom * fy > 0.45f ? '#' : '.';
+			}
+			out.append(new String(row)).append('\n');
+		}
+	}
+
+	private static void numbers(final int count, final int min, final int max, final Random random, final Appendable out) throws IOException {
+		for (int i = 0; i < count; i++) {
+			out.append(String.valueOf(min + random.nextInt(max - min + 1))).append('\n');
+		}
+	}
+
+	/**
+	 * Four columns of dancers, numbered 2, 3, ... in a random order
+	 */
+	private static void quest5(final int rows, final Random random, final Appendable out) throws IOException {
+		final int[] dancers = new int[rows * 4];
+		for (int i = 0; i < dancers.length; i++) {
+			dancers[i] = i + 2;
+		}
+		for (int i = dancers.length - 1; i > 0; i--) {
+			final int j = random.nextInt(i + 1);
+			final int dancer = dancers[i];
+			dancers[i] = dancers[j];
+			dancers[j] = dancer;
+		}
+		for (int row = 0; row < rows; row++) {
+			out.append("%d %d %d %d\n".formatted(dancers[row * 4], dancers[row * 4 + 1], dancers[row * 4 + 2], dancers[row * 4 + 3]));
+		}
+	}
+
+	/**
+	 * Random tree rooted at RR with fruit on every leaf, plus a chain from the root to one fruit deeper than all others.
+	 * Every other fruit shares its path length: a leaf whose depth no other leaf has gets a fresh sibling leaf.
+	 */
+	private static void quest6(final int nodes, final Random random, final Appendable out) throws IOException {
+		final int firstName = 26 + 26 * 26 + 26 * 26 * 26; // Four letters and longer, never BUG or ANT
+		final int[] parent = new int[nodes];
+		final int[] depth = new int[nodes];
+		final int[] childCount = new int[nodes];
+		int maxDepth = 0;
+		for (int node = 1; node < nodes; node++) {
+			parent[node] = random.nextInt(node);
+			depth[node] = depth[parent[node]] + 1;
+			childCount[parent[node]]++;
+			maxDepth = Math.max(maxDepth, depth[node]);
+		}
+
+		final int[] firstChild = new int[nodes + 1];
+		for (int node = 0; node < nodes; node++) {
+			firstChild[node + 1] = firstChild[node] + childCount[node];
+		}
+		final int[] children = new int[nodes];
+		final int[] filled = new int[nodes];
+		for (int node = 1; node < nodes; node++) {
+			children[firstChild[parent[node]] + filled[parent[node]]++] = node;
+		}
+
+		final int chainStart = nodes; // Chain of maxDepth + 1 fresh nodes from the root, ending in the unique fruit
+		final int paddingStart = chainStart + maxDepth + 1;
+
+		// The root always has the chain, so it is never a leaf
+		final int[] leavesAtDepth = new int[maxDepth + 1];
+		final int[] leafAtDepth = new int[maxDepth + 1];
+		for (int node = 1; node < nodes; node++) {
+			if (childCount[node] == 0) {
+				leavesAtDepth[depth[node]]++;
+				leafAtDepth[depth[node]] = node;
+			}
+		}
+		final int[] paddingChild = new int[nodes];
+		Arrays.fill(paddingChild, -1);
+		int paddingEnd = paddingStart;
+		for (int d = 1; d <= maxDepth; d++) {
+			if (leavesAtDepth[d] == 1) {
+				paddingChild[parent[leafAtDepth[d]]] = paddingEnd++;
+			}
+		}
+
+		for (int node = 0; node < nodes; node++) {
+			out.append(node == 0 ? "RR" : name(firstName + node)).append(':');
+			if (node > 0 && childCount[node] == 0) {
+				out.append('@');
+			}
+			for (int i = firstChild[node]; i < firstChild[node + 1]; i++) {
+				out.append(i > firstChild[node] ? "," : "").append(name(firstName + children[i]));
+			}
+			if (paddingChild[node] >= 0) {
+				out.append(',').append(name(firstName + paddingChild[node]));
+			}
+			if (node == 0) {
+				out.append(childCount[node] > 0 ? "," : "").append(name(firstName + chainStart));
+			}
+			out.append('\n');
+		}
+		for (int i = 0; i <= maxDepth; i++) {
+			out.append(name(firstName + chainStart + i)).append(':')
+				.append(i < maxDepth ? name(firstName + chainStart + i + 1) : "@").append('\n');
+		}
+		for (int node = paddingStart; node < paddingEnd; node++) {
+			out.append(name(firstName + node)).append(":@\n");
+		}
+	}
+
+	private static void quest7(final int knights, final Random random, final Appendable out) throws IOException {
+		for (int knight = 0; knight < knights; knight++) {
+			out.append(name(knight)).append(':');
+			for (int i = 0; i < 10; i++) {
+				out.append(i > 0 ? "," : "").append("+-=".charAt(random.nextInt(3)));
+			}
+			out.append('\n');
+		}
+	}
+
+	/**
+	 * Wall of {@param side} x {@param side} part 3 grids. The inner cells of a grid are a row and column permutation of
+	 * one 4x4 square of letters, the same row permutation across a row of grids and the same column permutation down a
+	 * column of grids, so shared borders always agree. Some border runes are then replaced with '?'.
+	 */
+	private static void quest10(final int side, final Random random, final Appendable out) throws IOException {
+		final char[] letters = ALPHABET.toCharArray();
+		shuffle(letters, random);
+
+		final int[][] rowOrders = new int[side][];
+		final int[][] columnOrders = new int[side][];
+		for (int i = 0; i < side; i++) {
+			rowOrders[i] = permutation(4, random);
+			columnOrders[i] = permutation(4, random);
+		}
+
+		final int width = side * 6 + 2;
+		final char[] wall = new char[width * width];
+		final int[] offsets = { 0, 1, 6, 7 };
+		for (int gy = 0; gy < side; gy++) {
+			for (int gx = 0; gx < side; gx++) {
+				final int origin = gy * 6 * width + gx * 6;
+				final char[] inner = new char[16];
+				for (int r = 0; r < 4; r++) {
+					for (int c = 0; c < 4; c++) {
+						inner[r * 4 + c] = letters[rowOrders[gy][r] * 4 + columnOrders[gx][c]];
+						wall[origin + (2 + r) * width + 2 + c] = '.';
+					}
+				}
+				for (int i = 0; i < 4; i++) {
+					fillRunes(wall, origin + (2 + i) * width, 1, offsets, new char[] { inner[i * 4], inner[i * 4 + 1], inner[i * 4 + 2], inner[i * 4 + 3] }, random);
+					fillRunes(wall, origin + 2 + i, width, offsets, new char[] { inner[i], inner[4 + i], inner[8 + i], inner[12 + i] }, random);
+				}
+				for (final int y : offsets) {
+					for (final int x : offsets) {
+						wall[origin + y * width + x] = '*';
+					}
+				}
+			}
+		}
+
+		for (int y = 0; y < width; y++) {
+			for (int x = 0; x < width; x++) {
+				final char rune = wall[y * width + x];
+				out.append(Character.isLetter(rune) && random.nextInt(40) == 0 ? '?' : rune);
+			}
+			out.append('\n');
+		}
+	}
+	/**
+	 * Place {@param runes} on the border positions of one grid line in a random order, keeping the runes a neighbouring
+	 * grid already placed on the shared positions
+	 */
+	private static void fillRunes(final char[] wall, final int lineStart, final int stride, final int[] offsets, final char[] runes, final Random random) {
+		int free = 0;
+		for (final char rune : runes) {
+			boolean placed = false;
+			for (final int offset : offsets) {
+				placed |= wall[lineStart + offset * stride] == rune;
+			}
+			if (!placed) {
+				runes[free++] = rune;
+			}
+		}
+		shuffle(runes, free, random);
+
+		for (final int offset : offsets) {
+			if (wall[lineStart + offset * stride] == 0) {
+				wall[lineStart + offset * stride] = runes[--free];
+			}
+		}
+	}
+	private static int[] permutation(final int size, final Random random) {
+		final int[] permutation = new int[size];
+		for (int i = 0; i < size; i++) {
+			final int j = random.nextInt(i + 1);
+			permutation[i] = permutation[j];
+			permutation[j] = i;
+		}
+		return permutation;
+	}
+	private static void shuffle(final char[] array, final Random random) {
+		shuffle(array, array.length, random);
+	}
+	private static void shuffle(final char[] array, final int length, final Random random) {
+		for (int i = length - 1; i > 0; i--) {
+			final int j = random.nextInt(i + 1);
+			final char c = array[i];
+			array[i] = array[j];
+			array[j] = c;
+		}
+	}
+
+	/**
+	 * Every category turns into one to four categories; the first 26 are A to Z, so both A and Z exist from 26 up
+	 */
+	private static void quest11(final int categories, final Random random, final Appendable out) throws IOException {
+		for (int category = 0; category < categories; category++) {
+			out.append(name(category)).append(':');
+			final int rules = 1 + random.nextInt(4);
+			for (int i = 0; i < rules; i++) {
+				out.append(i > 0 ? "," : "").append(name(random.nextInt(categories)));
+			}
+			out.append('\n');
+		}
+	}
+
+	/**
+	 * @return Path lengths from RR to a fruit that no other fruit has, in a Quest 6 input
+	 */
+	private static List<Integer> uniqueFruitDepths(final String input) {
+		final Map<String, String[]> links = new HashMap<>();
+		input.lines().forEach(line -> links.put(line.substring(0, line.indexOf(':')), line.substring(line.indexOf(':') + 1).split(",")));
+
+		final Map<Integer, Integer> fruitsAtDepth = new TreeMap<>();
+		final Deque<Map.Entry<String, Integer>> queue = new ArrayDeque<>(List.of(Map.entry("RR", 0)));
+		while (!queue.isEmpty()) {
+			final Map.Entry<String, Integer> node = queue.poll();
+			for (final String link : links.get(node.getKey())) {
+				if (link.equals("@")) {
+					fruitsAtDepth.merge(node.getValue() + 1, 1, Integer::sum);
+				} else {
+					queue.add(Map.entry(link, node.getValue() + 1));
+				}
+			}
+		}
+		return fruitsAtDepth.entrySet().stream().filter(entry -> entry.getValue() == 1).map(Map.Entry::getKey).toList();
+	}
+
+	public static void test() {
+		expect(name(0) + name(25) + name(26) + name(26 + 26 * 26 - 1), "AZAAZZ");
+		expect(name(26 + 26 * 26), "AAA");
+		expect(generate(6, 1000, 5L), generate(6, 1000, 5L));
+		expect(generate(3, 50, 1L).equals(generate(3, 50, 2L)), false);
+		expect(generate(3, 50, 1L).lines().count(), 50L);
+
+		for (final int nodes : List.of(1, 2, 100, 1_000, 10_000)) {
+			for (long seed = 1L; seed <= 3L; seed++) {
+				expect(uniqueFruitDepths(generate(6, nodes, seed)).size(), 1);
+			}
+		}
+
+		// Every generated input is accepted by the first part in its format
+		final List<Solver> solvers = QuestRegistry.solvers();
+		for (int quest = 1; quest <= 11; quest++) {
+			final String input = generate(quest, quest == 10 ? 3 : 60, quest);
+			final String part = "Quest%dPart%d".formatted(quest, quest == 10 ? 3 : 1);
+			final Solver solver = solvers.stream().filter(s -> s.matches(part)).findFirst().orElseThrow();
+			try {
+				solver.solve(input);
+			} catch (Exception e) {
+				throw new AssertionError("Generated input for quest %d was rejected".formatted(quest), e);
+			}
+		}
+	}
+}
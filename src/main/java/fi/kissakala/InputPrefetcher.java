@@ -0,0 +1,134 @@
+package fi.kissakala;
+
+import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Reads input resources in the background on virtual threads, so a solver's inputs are usually in memory before its
+ * turn comes. Each resource is read once; its bytes feed both the {@link AnswerCache} key and the decoded text.
+ * Bytes are kept until {@link #texts} has handed them to every solver that was started with them.
+ * <p>
+ * Each read is a {@link Events.ParseEvent} of the solver that first asked for the resource.
+ */
+public final class InputPrefetcher {
+	private final Map<String, CompletableFuture<byte[]>> contents = new ConcurrentHashMap<>();
+	private final Map<String, Integer> readers = new ConcurrentHashMap<>(); // Solvers yet to take each resource
+
+	/**
+	 * Start reading every input of {@param solvers}
+	 */
+	public static InputPrefetcher start(final Collection<Solver> solvers) {
+		final InputPrefetcher prefetcher = new InputPrefetcher();
+		for (final Solver solver : solvers) {
+			for (final String resource : solver.inputs()) {
+				prefetcher.readers.merge(resource, 1, Integer::sum);
+				prefetcher.bytes(resource, solver.id());
+			}
+		}
+		return prefetcher;
+	}
+
+	/**
+	 * @return Contents of {@param resource}, starting to read it now if it was not prefetched
+	 */
+	public CompletableFuture<byte[]> bytes(final String resource) {
+		return bytes(resource, Utils.currentTask());
+	}
+
+	private CompletableFuture<byte[]> bytes(final String resource, final String task) {
+		return contents.computeIfAbsent(resource, _ -> read(resource, task));
+	}
+
+	/**
+	 * Hand {@param resources} to a solver, forgetting the bytes of those no other started solver reads
+	 * @return {@param resources} decoded as UTF-8, in the same order
+	 */
+	public CompletableFuture<String[]> texts(final List<String> resources) {
+		final List<CompletableFuture<byte[]>> futures = resources.stream().map(this::bytes).toList();
+		for (final String resource : resources) {
+			if (readers.computeIfPresent(resource, (_, count) -> count > 1 ? count - 1 : null) == null) {
+				contents.remove(resource);
+			}
+		}
+		return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+			.thenApply(_ -> futures.stream().map(future -> new String(future.join(), StandardCharsets.UTF_8)).toArray(String[]::new));
+	}
+
+	private static CompletableFuture<byte[]> read(final String resource, final String task) {
+		final CompletableFuture<byte[]> future = new CompletableFuture<>();
+		Thread.ofVirtual().name("prefetch " + resource).start(() -> {
+			final Events.ParseEvent event = Utils.beginParse(resource, task);
+			try {
+				final byte[] bytes = Utils.readInputAsBytes(resource);
+				Utils.commitParse(event, bytes.length, event.shouldCommit() ? lines(bytes) : 0L);
+				future.complete(bytes);
+			} catch (Exception e) {
+				future.completeExceptionally(e);
+			}
+		});
+		return future;
+	}
+
+	private static long lines(final byte[] bytes) {
+		long lines = bytes.length > 0 && bytes[bytes.length - 1] != '\n' ? 1L : 0L;
+		for (final byte b : bytes) {
+			if (b == '\n') {
+				lines++;
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * Wait for {@param future}, rethrowing what it failed with instead of an {@link ExecutionException}
+	 */
+	public static <T> T await(final Future<T> future) throws Exception {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			while (cause instanceof CompletionException && cause.getCause() != null) {
+				cause = cause.getCause();
+			}
+			if (cause instanceof Exception exception) {
+				throw exception;
+			}
+			throw e;
+		}
+	}
+
+	public static void test() throws Exception {
+		final String services = "META-INF/services/" + QuestSolver.class.getName();
+		final Solver solver = new Solver("Test", 1, 1, 1, List.of(services, services), inputs -> inputs.length);
+		final InputPrefetcher prefetcher = start(List.of(solver, solver));
+		Utils.expect(prefetcher.contents.size(), 1);
+		Utils.expect(prefetcher.bytes(services) == prefetcher.bytes(services), true);
+
+		final String[] texts = await(prefetcher.texts(List.of(services, services)));
+		Utils.expect(texts.length, 2);
+		Utils.expect(texts[0].contains("Quest1$Part1"), true);
+		Utils.expect(texts[1], texts[0]);
+
+		// Kept for the second solver, then forgotten
+		Utils.expect(prefetcher.contents.size(), 1);
+		Utils.expect(await(prefetcher.texts(List.of(services, services)))[0], texts[0]);
+		Utils.expect(prefetcher.contents.isEmpty(), true);
+		Utils.expect(lines("a\nb".getBytes(StandardCharsets.UTF_8)), 2L);
+		Utils.expect(lines("a\n".getBytes(StandardCharsets.UTF_8)), 1L);
+
+		try {
+			await(prefetcher.texts(List.of(services, "Missing/Quest1Part1.txt")));
+			throw new AssertionError("Missing resource was read");
+		} catch (FileNotFoundException e) {
+			Utils.expect(e.getMessage(), "Missing/Quest1Part1.txt");
+		}
+	}
+}
@@ -0,0 +1,196 @@
+package fi.kissakala;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Parses lists of decimal integers, e.g. one number per line, straight into an {@code int[]} or {@code long[]}.
+ * <p>
+ * The bytes are cut into chunks at separators and the chunks are parsed in parallel, first counting the numbers of
+ * each chunk so that every chunk knows where its numbers go. Digits are decoded eight at a time (SWAR): one
+ * little-endian {@code long} read finds the length of the digit run and three multiply-add steps turn it into a value.
+ * Numbers are separated by whitespace or ','. Anything else, or a number outside the {@code long} range, is a
+ * {@link NumberFormatException}, as with {@link Long#parseLong}.
+ */
+public final class NumberParser {
+	private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final int MIN_CHUNK = 1 << 16;
+
+	private NumberParser() {}
+
+	public static int[] parseInts(final String input) {
+		return parseInts(input.getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	public static int[] parseInts(final byte[] input) {
+		final long[] values = parseLongs(input);
+		final int[] result = new int[values.length];
+		for (int i = 0; i < values.length; i++) {
+			result[i] = (int) values[i];
+			if (result[i] != values[i]) {
+				throw new NumberFormatException("Number " + values[i] + " does not fit in an int");
+			}
+		}
+		return result;
+	}
+
+	public static long[] parseLongs(final String input) {
+		return parseLongs(input.getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	public static long[] parseLongs(final byte[] input) {
+		final int[] bounds = chunkBounds(input);
+		final int chunks = bounds.length - 1;
+
+		final int[] offsets = new int[chunks + 1];
+		IntStream.range(0, chunks).parallel().forEach(chunk -> offsets[chunk + 1] = count(input, bounds[chunk], bounds[chunk + 1]));
+		Arrays.parallelPrefix(offsets, Integer::sum);
+
+		final long[] result = new long[offsets[chunks]];
+		IntStream.range(0, chunks).parallel().forEach(chunk -> parse(input, bounds[chunk], bounds[chunk + 1], result, offsets[chunk]));
+		return result;
+	}
+
+	/**
+	 * Chunk starts, each moved forward to just after a separator, followed by the input length
+	 */
+	private static int[] chunkBounds(final byte[] input) {
+		final int chunks = (int) Math.max(1, Math.min(input.length / MIN_CHUNK, Runtime.getRuntime().availableProcessors() * 4L));
+		final int[] bounds = new int[chunks + 1];
+		for (int chunk = 1; chunk < chunks; chunk++) {
+			int bound = Math.max(bounds[chunk - 1], (int) ((long) input.length * chunk / chunks));
+			while (bound < input.length && isNumberByte(input[bound])) {
+				bound++;
+			}
+			bounds[chunk] = bound;
+		}
+		bounds[chunks] = input.length;
+		return bounds;
+	}
+
+	private static boolean isNumberByte(final byte b) {
+		return b >= '0' && b <= '9' || b == '-';
+	}
+
+	private static boolean isSeparator(final byte b) {
+		return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == ',';
+	}
+
+	private static final int MAX_DIGITS = 19; // 10^19 < 2^64, so 19 digits are exact as an unsigned long
+
+	private static int count(final byte[] input, final int from, final int to) {
+		int count = 0;
+		boolean inNumber = false;
+		for (int i = from; i < to; i++) {
+			final boolean digit = input[i] >= '0' && input[i] <= '9';
+			if (digit && !inNumber) {
+				count++;
+			}
+			inNumber = digit;
+		}
+		return count;
+	}
+
+	private static void parse(final byte[] input, final int from, final int to, final long[] result, int index) {
+		int i = from;
+		while (i < to) {
+			if (isSeparator(input[i])) {
+				i++;
+				continue;
+			}
+
+			final int start = i;
+			final boolean negative = input[i] == '-';
+			if (negative) {
+				i++;
+			}
+			long value = 0L;
+			int length = 0;
+			while (i < to) {
+				final int digits;
+				final long chunk;
+				if (i + Long.BYTES <= input.length) {
+					// Digits become bytes 0..9; anything else has the high bit set after adding 0x76
+					final long word = (long) LONG_LE.get(input, i) ^ 0x3030303030303030L;
+					final long nonDigits = ((word + 0x7676767676767676L) | word) & 0x8080808080808080L;
+					digits = Math.min(to - i, Long.numberOfTrailingZeros(nonDigits) >>> 3);
+					chunk = digits == 0 ? 0L : swarDigits(word << ((Long.BYTES - digits) * 8));
+				} else {
+					int n = 0;
+					long scalar = 0L;
+					while (i + n < to && input[i + n] >= '0' && input[i + n] <= '9') {
+						scalar = scalar * 10 + (input[i + n] - '0');
+						n++;
+					}
+					digits = n;
+					chunk = scalar;
+				}
+				if (digits == 0) {
+					break;
+				}
+				value = value * POWERS_OF_TEN[digits] + chunk;
+				length += digits;
+				i += digits;
+				if (digits < Long.BYTES) {
+					break;
+				}
+			}
+			if (length == 0 || length > MAX_DIGITS || i < to && !isSeparator(input[i])
+				|| Long.compareUnsigned(value, negative ? Long.MIN_VALUE : Long.MAX_VALUE) > 0) {
+				int end = i;
+				while (end < to && !isSeparator(input[end])) {
+					end++;
+				}
+				throw new NumberFormatException("For input \"%s\"".formatted(new String(input, start, end - start, StandardCharsets.ISO_8859_1)));
+			}
+			result[index++] = negative ? -value : value;
+		}
+	}
+
+	private static final long[] POWERS_OF_TEN = { 1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L };
+
+	/**
+	 * @param word Eight digit values 0..9, the most significant in the lowest byte
+	 */
+	private static long swarDigits(long word) {
+		word = (word * 10 + (word >>> 8)) & 0x00FF00FF00FF00FFL;
+		word = (word * 100 + (word >>> 16)) & 0x0000FFFF0000FFFFL;
+		return (word * 10_000 + (word >>> 32)) & 0xFFFFFFFFL;
+	}
+
+	public static void test() {
+		Utils.expect(Arrays.toString(parseInts("3\n4\r\n7\n8")), "[3, 4, 7, 8]");
+		Utils.expect(Arrays.toString(parseInts("156488\n352486\n546212\n")), "[156488, 352486, 546212]");
+		Utils.expect(Arrays.toString(parseLongs("12345678,123456789 -42 0\n9223372036854775807")), "[12345678, 123456789, -42, 0, 9223372036854775807]");
+		Utils.expect(parseInts("").length, 0);
+		Utils.expect(parseLongs("-9223372036854775808")[0], Long.MIN_VALUE);
+		for (final String bad : List.of("2147483648", "9223372036854775808", "12345678901234567890123", "1.5", "12a3", "3\n4x", "--1", "-", "1-2")) {
+			try {
+				if (bad.startsWith("2147")) {
+					parseInts(bad);
+				} else {
+					parseLongs(bad);
+				}
+				throw new IllegalStateException("Parsed " + bad);
+			} catch (NumberFormatException _) {
+				// expected
+			}
+		}
+
+		// Many chunks, numbers of every length, against Long.parseLong
+		final Random random = new Random(44L);
+		final long[] expected = new long[200_000];
+		final StringBuilder input = new StringBuilder();
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = random.nextLong() >> random.nextInt(64);
+			input.append(expected[i]).append(i % 7 == 0 ? "\r\n" : "\n");
+		}
+		Utils.expect(Arrays.equals(parseLongs(input.toString()), expected), true);
+	}
+}
@@ -0,0 +1,98 @@
+package fi.kissakala;
+
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+import static fi.kissakala.Utils.*;
+
+/**
+ * All {@link QuestSolver}s on the class path. Only the provider classes are loaded to read their {@link QuestSolver.Part};
+ * they are initialized and instantiated when a part is actually solved.
+ */
+public final class QuestRegistry {
+	private QuestRegistry() {}
+
+	/**
+	 * @return All solvers ordered by event, quest and part
+	 */
+	public static List<Solver> solvers() {
+		return ServiceLoader.load(QuestSolver.class).stream()
+			.map(QuestRegistry::toSolver)
+			.sorted(Comparator.comparing(Solver::event).thenComparingInt(Solver::quest).thenComparingInt(Solver::part))
+			.toList();
+	}
+
+	private static Solver toSolver(final ServiceLoader.Provider<QuestSolver> provider) {
+		final QuestSolver.Part part = provider.type().getAnnotation(QuestSolver.Part.class);
+		if (part == null) {
+			throw new IllegalStateException(provider.type().getName() + " is not annotated with @QuestSolver.Part");
+		}
+		final Solver.SolveFunction function = new Solver.SolveFunction() {
+			private volatile String fingerprint;
+
+			@Override
+			public Object solve(final String... inputs) throws Exception {
+				return provider.get().solve(inputs);
+			}
+
+			@Override
+			public Object solveFile(final Path input, final String... extraInputs) throws Exception {
+				return provider.get().solveFile(input, extraInputs);
+			}
+
+			@Override
+			public String fingerprint() {
+				if (fingerprint == null) {
+					fingerprint = AnswerCache.fingerprint(provider.type());
+				}
+				return fingerprint;
+			}
+		};
+		return Solver.of(part.event(), part.quest(), part.part(), part.version(), function, part.extraInputs());
+	}
+
+	/**
+	 * Solve the parts accepted by {@param filter}, answering from the {@link AnswerCache} where possible
+	 */
+	public static void solve(final Predicate<Solver> filter) {
+		final List<Solver> selected = solvers().stream().filter(filter).toList();
+		solve(selected, InputPrefetcher.start(selected));
+	}
+	/**
+	 * Solve {@param solvers} in order, taking their inputs from {@param prefetcher}
+	 */
+	public static void solve(final List<Solver> solvers, final InputPrefetcher prefetcher) {
+		try {
+			int quest = 0;
+			for (final Solver solver : solvers) {
+				if (solver.quest() != quest) {
+					quest = solver.quest();
+					IO.println("=== Quest %d ===".formatted(quest));
+				}
+				// The key first, texts() lets go of the bytes
+				final AnswerCache.Key key = solver.cacheKey(prefetcher);
+				final Future<String[]> inputs = prefetcher.texts(solver.inputs());
+				run("Part " + solver.part(), key, () -> solver.solve(inputs));
+			}
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public static void test() {
+		final List<Solver> solvers = solvers();
+		expect(solvers.stream().filter(solver -> solver.matches("Quest7")).count(), 3L);
+		expect(solvers.stream().filter(solver -> solver.matches("TheKingdomOfAlgorithmia/Quest1Part2")).map(Solver::id).toList(), List.of("TheKingdomOfAlgorithmia/Quest1Part2"));
+		expect(solvers.stream().filter(solver -> solver.matches("Quest1Part2")).count(), 1L);
+		expect(solvers.stream().filter(solver -> solver.matches("Quest1Part")).count(), 0L);
+		expect(solvers.stream().map(Solver::id).distinct().count(), (long) solvers.size());
+		expect(solvers.getFirst().id(), "TheKingdomOfAlgorithmia/Quest1Part1");
+		expect(solvers.stream().filter(solver -> solver.matches("Quest7Part2")).findFirst().orElseThrow().inputs().size(), 2);
+		expect(solvers.get(0).function().fingerprint(), solvers.get(1).function().fingerprint()); // Same quest
+		expect(solvers.get(0).function().fingerprint().length(), 64);
+	}
+}
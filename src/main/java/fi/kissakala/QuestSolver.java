@@ -0,0 +1,50 @@
+package fi.kissakala;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.nio.file.Path;
+
+/**
+ * Service provider interface for a single quest part, discovered with {@link java.util.ServiceLoader}.
+ * <p>
+ * Implementations are listed in {@code META-INF/services/fi.kissakala.QuestSolver} and annotated with {@link Part},
+ * which {@link QuestRegistry} reads without initializing the class. A solver is only instantiated when it is selected.
+ */
+public interface QuestSolver {
+	/**
+	 * Which part the annotated solver solves. The first input is {@code <event>/Quest<quest>Part<part>.txt}.
+	 */
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.TYPE)
+	@interface Part {
+		String event();
+		int quest();
+		int part();
+
+		/**
+		 * Bump when the solver changes in a way that may change its answer, see {@link AnswerCache}
+		 */
+		int version() default 1;
+
+		/**
+		 * Input resources read after the part's own input
+		 */
+		String[] extraInputs() default {};
+	}
+
+	/**
+	 * @param inputs Contents of the input resources, in the order of {@link Part}
+	 */
+	Object solve(String... inputs) throws Exception;
+
+	/**
+	 * Solve with the first input in {@param input}, for inputs that may be too large to read into a {@code String}.
+	 * By default the file is read and passed to {@link #solve(String...)}.
+	 * @param extraInputs Contents of the other input resources
+	 */
+	default Object solveFile(final Path input, final String... extraInputs) throws Exception {
+		return solve(Solver.withFirstInput(input, extraInputs));
+	}
+}
@@ -0,0 +1,663 @@
+package fi.kissakala;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Chariot race simulation for The Kingdom of Algorithmia Quest 7.
+ * <p>
+ * The track is compiled once into one power delta per segment, with 0 meaning "the plan decides". Plans are evaluated
+ * either one at a time or in batches laid out as struct-of-arrays (one power and essence slot per lane), where each
+ * segment is a branch-free loop over the lanes that C2 can auto-vectorize.
+ */
+public final class RaceSimulator {
+	public static final int BATCH_SIZE = 1024;
+
+	private static final WorkCounter STEPS = WorkCounter.of("Race steps");
+	private static final WorkCounter PLANS_EVALUATED = WorkCounter.ofIterations("Plans evaluated");
+
+	private final int[] segmentActions;
+	private final long steps;
+
+	private RaceSimulator(final long steps, final int[] segmentActions) {
+		this.segmentActions = segmentActions;
+		this.steps = steps;
+	}
+
+	/**
+	 * @param track Racetrack starting with 'S', or null to race without a track (one plan action per round)
+	 */
+	public RaceSimulator(final char[] track, final int rounds) {
+		if (track == null) {
+			this.segmentActions = new int[]{0};
+			this.steps = rounds;
+		}
+		else {
+			// A lap visits segments 1, 2, ..., n - 1 and then the start 'S'
+			this.segmentActions = new int[track.length];
+			for (int i = 0; i < track.length; i++) {
+				this.segmentActions[i] = delta(track[(i + 1) % track.length]);
+			}
+			this.steps = (long) rounds * track.length;
+		}
+	}
+
+	public int segments() {
+		return segmentActions.length;
+	}
+
+	/**
+	 * @return Essence gathered by a single {@param plan}
+	 */
+	public long essence(final char[] plan) {
+		final int[] planDeltas = new int[plan.length];
+		for (int i = 0; i < plan.length; i++) {
+			planDeltas[i] = delta(plan[i]);
+		}
+
+		long essence = 0L;
+		int power = 10;
+		int segment = 0;
+		int planPos = 0;
+		for (long step = 0; step < steps; step++) {
+			final int action = segmentActions[segment];
+			power = Math.max(power + (action != 0 ? action : planDeltas[planPos]), 0);
+			essence += power;
+
+			if (++segment == segmentActions.length) segment = 0;
+			if (++planPos == planDeltas.length) planPos = 0;
+		}
+		STEPS.add(steps);
+		return essence;
+	}
+
+	/**
+	 * Evaluate {@code plans[from, to)} together, at most {@link #BATCH_SIZE} of them. All plans must have the same length.
+	 * @param result Receives the essence of {@code plans[from + i]} at index {@code i}
+	 */
+	public void essence(final List<char[]> plans, final int from, final int to, final long[] result) {
+		final int lanes = to - from;
+		if (lanes <= 0) {
+			return;
+		}
+		final int planLength = plans.get(from).length;
+
+		// Struct-of-arrays: one row of lane deltas per plan position
+		final int[][] planDeltas = new int[planLength][lanes];
+		for (int lane = 0; lane < lanes; lane++) {
+			final char[] plan = plans.get(from + lane);
+			if (plan.length != planLength) {
+				throw new IllegalArgumentException("Plans in a batch must have the same length");
+			}
+			for (int i = 0; i < planLength; i++) {
+				planDeltas[i][lane] = delta(plan[i]);
+			}
+		}
+
+		// Same-width int lanes vectorize, so essence is summed in int and flushed to long before it can overflow
+		final int[] power = new int[lanes];
+		final int[] partialEssence = new int[lanes];
+		final long[] essence = new long[lanes];
+		Arrays.fill(power, 10);
+		final long flushEvery = Math.max(1L, Integer.MAX_VALUE / (10L + steps));
+
+		int segment = 0;
+		int planPos = 0;
+		for (long step = 0; step < steps; step++) {
+			final int action = segmentActions[segment];
+			if (action != 0) {
+				for (int lane = 0; lane < lanes; lane++) {
+					final int p = Math.max(power[lane] + action, 0);
+					power[lane] = p;
+					partialEssence[lane] += p;
+				}
+			}
+			else {
+				final int[] deltas = planDeltas[planPos];
+				for (int lane = 0; lane < lanes; lane++) {
+					final int p = Math.max(power[lane] + deltas[lane], 0);
+					power[lane] = p;
+					partialEssence[lane] += p;
+				}
+			}
+
+			if (++segment == segmentActions.length) segment = 0;
+			if (++planPos == planLength) planPos = 0;
+			if ((step + 1) % flushEvery == 0L) {
+				flush(partialEssence, essence);
+			}
+		}
+		flush(partialEssence, essence);
+		STEPS.add(steps * lanes);
+
+		System.arraycopy(essence, 0, result, 0, lanes);
+	}
+	private static void flush(final int[] partialEssence, final long[] essence) {
+		for (int lane = 0; lane < essence.length; lane++) {
+			essence[lane] += partialEssence[lane];
+		}
+		Arrays.fill(partialEssence, 0);
+	}
+
+	/**
+	 * @return Essence of every plan, evaluated in batches of {@link #BATCH_SIZE} on parallel streams
+	 */
+	public long[] essence(final List<char[]> plans) {
+		final long[] result = new long[plans.size()];
+		final int batches = (plans.size() + BATCH_SIZE - 1) / BATCH_SIZE;
+
+		IntStream.range(0, batches).parallel().forEach(batch -> {
+			final int from = batch * BATCH_SIZE;
+			final int to = Math.min(from + BATCH_SIZE, plans.size());
+			final long[] batchResult = new long[to - from];
+			essence(plans, from, to, batchResult);
+			System.arraycopy(batchResult, 0, result, from, batchResult.length);
+		});
+
+		return result;
+	}
+
+	/**
+	 * @return Indices of {@param plans} from the most to the least essence, ties in input order. Each plan is simulated
+	 * once, in parallel.
+	 */
+	public int[] ranking(final List<char[]> plans) {
+		return ranking(plans, plans.size());
+	}
+
+	/**
+	 * @return Indices of the {@param limit} plans with the most essence, best first, ties in input order
+	 */
+	public int[] ranking(final List<char[]> plans, final int limit) {
+		final long[] scores = scores(plans);
+		final int k = Math.min(limit, scores.length);
+		if (scores.length == 0 || k <= 0) {
+			return new int[0];
+		}
+
+		final long best = Arrays.stream(scores).max().orElseThrow();
+		final long worst = Arrays.stream(scores).min().orElseThrow();
+		if (best - worst < 0L || best - worst >= 1L << 31) {
+			// Scores too far apart to pack with the index
+			return IntStream.range(0, scores.length).boxed()
+				.sorted(Comparator.comparingLong((Integer i) -> scores[i]).reversed().thenComparing(Comparator.naturalOrder()))
+				.limit(k)
+				.mapToInt(Integer::intValue)
+				.toArray();
+		}
+
+		// Ascending keys are descending scores, ties by index
+		final long[] keys = new long[scores.length];
+		Arrays.parallelSetAll(keys, i -> (best - scores[i]) << 32 | i);
+		final long[] ranked;
+		if (k == scores.length) {
+			Arrays.parallelSort(keys);
+			ranked = keys;
+		}
+		else {
+			ranked = smallest(keys, k);
+		}
+
+		final int[] result = new int[k];
+		for (int i = 0; i < k; i++) {
+			result[i] = (int) ranked[i];
+		}
+		return result;
+	}
+
+	private long[] scores(final List<char[]> plans) {
+		if (plans.stream().mapToInt(plan -> plan.length).distinct().count() <= 1L) {
+			return essence(plans);
+		}
+		return IntStream.range(0, plans.size()).parallel().mapToLong(i -> essence(plans.get(i))).toArray();
+	}
+
+	/**
+	 * @return The {@param k} smallest of {@param keys} in ascending order, kept in a bounded max-heap
+	 */
+	static long[] smallest(final long[] keys, final int k) {
+		final long[] heap = new long[k];
+		int size = 0;
+		for (final long key : keys) {
+			if (size < k) {
+				// Sift up
+				int i = size++;
+				while (i > 0 && heap[(i - 1) / 2] < key) {
+					heap[i] = heap[(i - 1) / 2];
+					i = (i - 1) / 2;
+				}
+				heap[i] = key;
+			}
+			else if (key < heap[0]) {
+				// Replace the largest and sift down
+				int i = 0;
+				while (true) {
+					int child = 2 * i + 1;
+					if (child >= k) break;
+					if (child + 1 < k && heap[child + 1] > heap[child]) child++;
+					if (heap[child] <= key) break;
+					heap[i] = heap[child];
+					i = child;
+				}
+				heap[i] = key;
+			}
+		}
+		Arrays.sort(heap, 0, size);
+		return heap;
+	}
+
+	/**
+	 * Count the plans with exactly {@param plus} '+', {@param minus} '-' and {@param equal} '=' actions whose essence
+	 * is greater than {@param threshold}, e.g. the plans beating a rival.
+	 * <p>
+	 * Walks the tree of plan prefixes instead of simulating every plan. Without the floor at zero, essence is a
+	 * constant plus a weighted sum of the plan deltas, so the best and worst completion of a prefix follow from sorting
+	 * the remaining weights. The floor only ever adds essence, and adds less the higher the deltas are, so completing the
+	 * prefix with all '-' bounds what it can add. A subtree whose bounds are both on one side of {@param threshold} is
+	 * counted or discarded whole; only the ambiguous plans are evaluated exactly.
+	 */
+	public long countPlansAbove(final long threshold, final int plus, final int minus, final int equal) {
+		return new PlanSearch(plus + minus + equal).count(threshold, plus, minus, equal, 0L, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Like {@link #countPlansAbove(long, int, int, int)}, but only for the plans ranked {@code [from, to)} when ordered
+	 * by their actions, '+' before '-' before '='
+	 */
+	public long countPlansAbove(final long threshold, final int plus, final int minus, final int equal, final long from, final long to) {
+		return new PlanSearch(plus + minus + equal).count(threshold, plus, minus, equal, from, to);
+	}
+
+	/**
+	 * Like {@link #countPlansAbove(long, int, int, int)}, with the plans split by rank over the workers of {@param shards}
+	 */
+	public long countPlansAbove(final long threshold, final int plus, final int minus, final int equal, final ShardRunner shards) throws Exception {
+		if (shards.workers() <= 0) {
+			return countPlansAbove(threshold, plus, minus, equal);
+		}
+
+		final StringBuilder actions = new StringBuilder(segmentActions.length);
+		for (final int action : segmentActions) {
+			actions.append(action > 0 ? '+' : action < 0 ? '-' : '=');
+		}
+		return shards.count(PlansAboveJob.class, "%d %d %d %d %d %s".formatted(threshold, plus, minus, equal, steps, actions));
+	}
+
+	/**
+	 * {@link #countPlansAbove} as a {@link ShardRunner.Job}. Spec: {@code <threshold> <plus> <minus> <equal> <steps> <segment actions>}.
+	 */
+	private static final class PlansAboveJob implements ShardRunner.Job {
+		private final long threshold;
+		private final int plus;
+		private final int minus;
+		private final int equal;
+		private final PlanSearch search;
+
+		private PlansAboveJob(final String spec) {
+			final String[] fields = spec.split(" ");
+			this.threshold = Long.parseLong(fields[0]);
+			this.plus = Integer.parseInt(fields[1]);
+			this.minus = Integer.parseInt(fields[2]);
+			this.equal = Integer.parseInt(fields[3]);
+			final int[] segmentActions = fields[5].chars().map(c -> delta((char) c)).toArray();
+			this.search = new RaceSimulator(Long.parseLong(fields[4]), segmentActions).new PlanSearch(plus + minus + equal);
+		}
+
+		@Override
+		public long size() {
+			return multinomial(plus, minus, equal);
+		}
+
+		@Override
+		public long count(final long from, final long to) {
+			return search.count(threshold, plus, minus, equal, from, to);
+		}
+	}
+
+	/**
+	 * Essence of a plan given as deltas, computed the same way as {@link #countPlansAbove} does at its leaves
+	 */
+	long essence(final int[] planDeltas) {
+		final PlanSearch search = new PlanSearch(planDeltas.length);
+		long linear = 0L;
+		for (int i = 0; i < planDeltas.length; i++) {
+			linear += search.weights[i] * planDeltas[i];
+		}
+		return search.constant + linear + floorCorrection(planDeltas, false);
+	}
+
+	/**
+	 * Essence the floor at zero adds to the plain running sum. The unfloored power u drops below zero only by its
+	 * running minimum m, so the floored power is {@code u + max(0, -m)}. After each period, when the track and the plan
+	 * are back in step, u has moved by the same amount D. If D is not negative the minimum is final after the first
+	 * period. Otherwise, once the minimum is below zero, every period adds {@code -period * D} more than the previous one.
+	 * @param nonNegativeDrift Treat D as not negative, to bound the plans that are pointwise above {@param planDeltas}
+	 */
+	private long floorCorrection(final int[] planDeltas, final boolean nonNegativeDrift) {
+		final long period = period(planDeltas.length);
+
+		long power = 10L;
+		long minimum = 0L;
+		long correction = 0L;
+		int segment = 0;
+		int planPos = 0;
+		long step = 0L;
+		while (true) {
+			final boolean settled = step > 0L && minimum < 0L;
+			final long remainder = (steps - step) % period;
+			final long periodCorrection = correction;
+			long partialCorrection = 0L;
+			for (long i = 0; i < period && step < steps; i++, step++) {
+				if (i == remainder) {
+					partialCorrection = correction - periodCorrection;
+				}
+				final int action = segmentActions[segment];
+				power += action != 0 ? action : planDeltas[planPos];
+				if (power < minimum) {
+					minimum = power;
+				}
+				correction -= minimum;
+
+				if (++segment == segmentActions.length) segment = 0;
+				if (++planPos == planDeltas.length) planPos = 0;
+			}
+			if (step == steps) {
+				return correction;
+			}
+
+			final long drift = (power - 10L) / (step / period);
+			if (drift >= 0L || nonNegativeDrift) {
+				return correction + (steps - step) * -minimum;
+			}
+			if (settled) {
+				final long periods = (steps - step) / period;
+				final long periodSum = correction - periodCorrection;
+				return correction + periods * periodSum - period * drift * (periods * (periods + 1) / 2)
+					+ partialCorrection - (periods + 1) * remainder * drift;
+			}
+		}
+	}
+
+	/**
+	 * @return Steps until the track and a plan of {@param planLength} are back at their start together
+	 */
+	private long period(final int planLength) {
+		return (long) segmentActions.length / Utils.gcd(segmentActions.length, planLength) * planLength;
+	}
+
+	/**
+	 * Per plan position, how it affects essence without the floor ({@code constant + sum(weights[i] * delta[i])}) and how
+	 * it moves power over one period ({@code trackDrift + sum(usage[i] * delta[i])})
+	 */
+	private final class PlanSearch {
+		private final long constant;
+		private final long[] weights;
+		private final long trackDrift;
+		private final long[] usage;
+		// Per depth, the remaining weights and usages sorted ascending, as prefix sums
+		private final long[][] sortedWeightSums;
+		private final long[][] sortedUsageSums;
+
+		private PlanSearch(final int planLength) {
+			final long period = period(planLength);
+			long constant = 10L * steps;
+			long trackDrift = 0L;
+			weights = new long[planLength];
+			usage = new long[planLength];
+			int segment = 0;
+			int planPos = 0;
+			for (long step = 0; step < steps; step++) {
+				// A delta at this step is part of the power of every remaining step
+				final int action = segmentActions[segment];
+				if (action != 0) {
+					constant += action * (steps - step);
+					trackDrift += step < period ? action : 0;
+				}
+				else {
+					weights[planPos] += steps - step;
+					usage[planPos] += step < period ? 1 : 0;
+				}
+
+				if (++segment == segmentActions.length) segment = 0;
+				if (++planPos == planLength) planPos = 0;
+			}
+			this.constant = constant;
+			this.trackDrift = trackDrift;
+			this.sortedWeightSums = sortedSuffixSums(weights);
+			this.sortedUsageSums = sortedSuffixSums(usage);
+		}
+
+		private static long[][] sortedSuffixSums(final long[] values) {
+			final long[][] result = new long[values.length + 1][];
+			for (int depth = 0; depth <= values.length; depth++) {
+				final long[] sorted = Arrays.copyOfRange(values, depth, values.length);
+				Arrays.sort(sorted);
+				result[depth] = new long[sorted.length + 1];
+				for (int i = 0; i < sorted.length; i++) {
+					result[depth][i + 1] = result[depth][i] + sorted[i];
+				}
+			}
+			return result;
+		}
+
+		private long count(final long threshold, final int plus, final int minus, final int equal, final long from, final long to) {
+			final Query query = new Query(threshold, from, to, new LongAdder());
+			final long result = ForkJoinPool.commonPool().invoke(new Prefix(query, 0, 0L, plus, minus, equal, 0L, trackDrift, new int[weights.length]));
+			// From the calling thread, the pool's threads do not run the caller's task
+			PLANS_EVALUATED.add(query.evaluated.sum());
+			return result;
+		}
+
+		/**
+		 * Count the plans ranked {@code [from, to)} with essence greater than {@code threshold}
+		 * @param evaluated Plans simulated to the end so far
+		 */
+		private record Query(long threshold, long from, long to, LongAdder evaluated) {}
+
+		/**
+		 * @return Lowest sum of value times delta over the remaining positions, '+' on the smallest values and '-' on the largest
+		 */
+		private static long lowest(final long[] sums, final int plus, final int minus) {
+			final int remaining = sums.length - 1;
+			return sums[plus] - (sums[remaining] - sums[remaining - minus]);
+		}
+		private static long highest(final long[] sums, final int plus, final int minus) {
+			final int remaining = sums.length - 1;
+			return (sums[remaining] - sums[remaining - plus]) - sums[minus];
+		}
+
+		/**
+		 * Plans starting with the first {@code depth} deltas of {@code deltas}, the first of them ranked {@code first}
+		 */
+		@SuppressWarnings("serial") // Serializable through ForkJoinTask, but never serialized
+		private final class Prefix extends RecursiveTask<Long> {
+			private static final int FORK_DEPTH = 4;
+
+			private final Query query;
+			private final int depth;
+			private final long first;
+			private final int plus;
+			private final int minus;
+			private final int equal;
+			private final long linear;
+			private final long drift;
+			private final int[] deltas;
+
+			private Prefix(final Query query, final int depth, final long first, final int plus, final int minus, final int equal, final long linear, final long drift, final int[] deltas) {
+				this.query = query;
+				this.depth = depth;
+				this.first = first;
+				this.plus = plus;
+				this.minus = minus;
+				this.equal = equal;
+				this.linear = linear;
+				this.drift = drift;
+				this.deltas = deltas;
+			}
+
+			@Override
+			protected Long compute() {
+				if (depth >= FORK_DEPTH || depth == deltas.length) {
+					return count(depth, first, plus, minus, equal, linear, drift, false);
+				}
+
+				final List<Prefix> children = new ArrayList<>(3);
+				final int[] counts = {plus, minus, equal};
+				long childFirst = first;
+				for (int action = 0; action < 3; action++) {
+					if (counts[action] > 0) {
+						counts[action]--;
+						final int delta = ACTION_DELTAS[action];
+						final int[] childDeltas = deltas.clone();
+						childDeltas[depth] = delta;
+						children.add(new Prefix(query, depth + 1, childFirst, counts[0], counts[1], counts[2], linear + weights[depth] * delta, drift + usage[depth] * delta, childDeltas));
+						childFirst += multinomial(counts[0], counts[1], counts[2]);
+						counts[action]++;
+					}
+				}
+				return invokeAll(children).stream().mapToLong(Prefix::join).sum();
+			}
+
+			/**
+			 * @param floorFree Whether no completion of the prefix ever reaches the floor, so essence is exactly linear
+			 */
+			private long count(final int depth, final long first, final int plus, final int minus, final int equal, final long linear, final long drift, final boolean floorFree) {
+				final long plans = Math.min(query.to, first + multinomial(plus, minus, equal)) - Math.max(query.from, first);
+				if (plans <= 0L) {
+					return 0L;
+				}
+				if (depth == deltas.length) {
+					query.evaluated.increment();
+					return constant + linear + (floorFree ? 0L : floorCorrection(deltas, false)) > query.threshold ? 1L : 0L;
+				}
+
+				// The floor only adds essence, so the worst case without it may already win
+				final long lowest = constant + linear + lowest(sortedWeightSums[depth], plus, minus);
+				if (lowest > query.threshold) {
+					return plans;
+				}
+
+				long correction = 0L;
+				if (!floorFree) {
+					// All '-' is pointwise below every completion. If no completion drifts down, only its first period matters.
+					Arrays.fill(deltas, depth, deltas.length, -1);
+					correction = floorCorrection(deltas, drift + lowest(sortedUsageSums[depth], plus, minus) >= 0L);
+				}
+				if (constant + linear + highest(sortedWeightSums[depth], plus, minus) + correction <= query.threshold) {
+					return 0L;
+				}
+
+				final boolean childrenFloorFree = correction == 0L;
+				long result = 0L;
+				long childFirst = first;
+				if (plus > 0) {
+					deltas[depth] = 1;
+					result += count(depth + 1, childFirst, plus - 1, minus, equal, linear + weights[depth], drift + usage[depth], childrenFloorFree);
+					childFirst += multinomial(plus - 1, minus, equal);
+				}
+				if (minus > 0) {
+					deltas[depth] = -1;
+					result += count(depth + 1, childFirst, plus, minus - 1, equal, linear - weights[depth], drift - usage[depth], childrenFloorFree);
+					childFirst += multinomial(plus, minus - 1, equal);
+				}
+				if (equal > 0) {
+					deltas[depth] = 0;
+					result += count(depth + 1, childFirst, plus, minus, equal - 1, linear, drift, childrenFloorFree);
+				}
+				return result;
+			}
+		}
+	}
+
+	private static final int[] ACTION_DELTAS = {1, -1, 0};
+
+	/**
+	 * @return Number of distinct orders of the given counts of three actions
+	 */
+	static long multinomial(final int a, final int b, final int c) {
+		return binomial(a + b + c, a) * binomial(b + c, b);
+	}
+	private static long binomial(final int n, final int k) {
+		long result = 1L;
+		for (int i = 1; i <= k; i++) {
+			result = result * (n - k + i) / i;
+		}
+		return result;
+	}
+
+	private static int delta(final char c) {
+		return switch (c) {
+			case '+' -> 1;
+			case '-' -> -1;
+			default -> 0;
+		};
+	}
+
+	public static void test() throws Exception {
+		final char[] track = ("S+===" + "+" + Utils.reverse("=+=-+") + "-").toCharArray();
+		final List<char[]> plans = List.of("+-==".toCharArray(), "+=-+".toCharArray(), "=-++".toCharArray(), "===+".toCharArray());
+
+		final RaceSimulator withoutTrack = new RaceSimulator(null, 10);
+		Utils.expect(withoutTrack.essence(plans.get(1)), 116L);
+
+		// The last one flushes the int lane sums many times
+		for (final RaceSimulator simulator : List.of(withoutTrack, new RaceSimulator(track, 10), new RaceSimulator("S+".toCharArray(), 100_000))) {
+			final long[] batch = simulator.essence(plans);
+			for (int i = 0; i < plans.size(); i++) {
+				Utils.expect(batch[i], simulator.essence(plans.get(i)));
+			}
+		}
+
+		// Power never drops below zero, on the track or by the plan
+		Utils.expect(new RaceSimulator("S-".toCharArray(), 20).essence("-".toCharArray()), 45L);
+
+		// Ranking by scoring once, in full and bounded, against sorting with a comparator that simulates every time
+		final RaceSimulator ranked = new RaceSimulator(track, 10);
+		final List<char[]> knights = new ArrayList<>();
+		final Random random = new Random(50L);
+		for (int i = 0; i < 500; i++) {
+			knights.add(plans.get(random.nextInt(plans.size())).clone());
+		}
+		final int[] expected = IntStream.range(0, knights.size()).boxed()
+			.sorted(Comparator.comparing((Integer knight) -> ranked.essence(knights.get(knight)), Comparator.reverseOrder()))
+			.mapToInt(Integer::intValue)
+			.toArray();
+		Utils.expect(Arrays.equals(ranked.ranking(knights), expected), true);
+		Utils.expect(Arrays.equals(ranked.ranking(knights, 7), Arrays.copyOf(expected, 7)), true);
+		Utils.expect(ranked.ranking(knights, 0).length, 0);
+		Utils.expect(Arrays.toString(ranked.ranking(List.of("+".toCharArray(), "-=".toCharArray(), "+".toCharArray()))), "[0, 2, 1]");
+		Utils.expect(Arrays.toString(smallest(new long[]{5L, 1L, 4L, 1L, 3L, 9L, 2L}, 3)), "[1, 1, 2]");
+
+		// Pruned counting against simulating every plan, with the floor reached early, late or not at all
+		Utils.expect(multinomial(5, 3, 3), 9240L);
+		final List<char[]> permutations = Utils.generatePermutations('+', 3, '-', 3, '=', 2).stream().map(String::toCharArray).toList();
+		for (final RaceSimulator simulator : List.of(new RaceSimulator(track, 10), new RaceSimulator("S--=-+=".toCharArray(), 30), new RaceSimulator("S-----=".toCharArray(), 7), new RaceSimulator("S-=".toCharArray(), 201), new RaceSimulator(null, 50))) {
+			final long[] essences = simulator.essence(permutations);
+			for (int i = 0; i < permutations.size(); i += 17) {
+				final int[] deltas = new int[permutations.get(i).length];
+				for (int j = 0; j < deltas.length; j++) {
+					deltas[j] = delta(permutations.get(i)[j]);
+				}
+				Utils.expect(simulator.essence(deltas), essences[i]);
+			}
+			for (final long threshold : new long[]{essences[0], essences[essences.length / 2], Arrays.stream(essences).max().orElseThrow(), 0L}) {
+				Utils.expect(simulator.countPlansAbove(threshold, 3, 3, 2), Arrays.stream(essences).filter(essence -> essence > threshold).count());
+			}
+
+			// Rank ranges add up, also when they cut through subtrees, and the sharding job counts the same in-process
+			final long threshold = essences[essences.length / 3];
+			final long total = simulator.countPlansAbove(threshold, 3, 3, 2);
+			Utils.expect(simulator.countPlansAbove(threshold, 3, 3, 2, 0L, 100L) + simulator.countPlansAbove(threshold, 3, 3, 2, 100L, 333L)
+				+ simulator.countPlansAbove(threshold, 3, 3, 2, 333L, multinomial(3, 3, 2)), total);
+			Utils.expect(simulator.countPlansAbove(threshold, 3, 3, 2, 5L, 5L), 0L);
+			Utils.expect(simulator.countPlansAbove(threshold, 3, 3, 2, new ShardRunner(0)), total);
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package fi.kissakala;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Rectangular grid of {@code int} cells stored off-heap in a {@link MemorySegment}, row-major.
+ * The lifetime of the cells is that of the {@link Arena} the grid was created in, so huge grids cost no heap and no GC work.
+ * Grids created in a confined arena may only be used by the thread that owns the arena.
+ */
+public final class SegmentGrid {
+	private final MemorySegment cells;
+	private final int width;
+	private final int height;
+
+	private SegmentGrid(final MemorySegment cells, final int width, final int height) {
+		this.cells = cells;
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * @return Zero-filled grid allocated in {@param arena}
+	 */
+	public static SegmentGrid allocate(final Arena arena, final int width, final int height) {
+		final MemorySegment cells = arena.allocate((long) width * height * Integer.BYTES, Integer.BYTES);
+		cells.fill((byte) 0);
+		return new SegmentGrid(cells, width, height);
+	}
+
+	/**
+	 * Memory-map a text grid (one row per line) and convert every character with {@param mapper}. Empty lines are
+	 * skipped and short rows are padded with {@param outside}, like {@link Utils.StencilGrid#of}.
+	 * The row offsets are indexed once while mapped, the file itself is never read onto the heap.
+	 */
+	public static SegmentGrid mapCharacters(final Arena arena, final Path file, final IntUnaryOperator mapper, final int outside) throws IOException {
+		try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final MemorySegment text = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size(), arena);
+			final long size = text.byteSize();
+
+			// Index row starts and lengths, the widest row is the width of the grid
+			long[] rowStarts = new long[64];
+			int[] rowLengths = new int[64];
+			int rows = 0;
+			int width = 0;
+			long position = 0L;
+			while (position < size) {
+				long end = position;
+				while (end < size && text.get(ValueLayout.JAVA_BYTE, end) != '\n') {
+					end++;
+				}
+				long rowEnd = end;
+				if (rowEnd > position && text.get(ValueLayout.JAVA_BYTE, rowEnd - 1) == '\r') {
+					rowEnd--;
+				}
+
+				if (rowEnd > position) {
+					if (rows == rowStarts.length) {
+						rowStarts = Arrays.copyOf(rowStarts, rows * 2);
+						rowLengths = Arrays.copyOf(rowLengths, rows * 2);
+					}
+					rowStarts[rows] = position;
+					rowLengths[rows] = Math.toIntExact(rowEnd - position);
+					width = Math.max(width, rowLengths[rows++]);
+				}
+				position = end + 1;
+			}
+			if (rows == 0) {
+				throw new IllegalArgumentException("Empty grid");
+			}
+
+			final SegmentGrid grid = allocate(arena, width, rows);
+			for (int y = 0; y < rows; y++) {
+				final long rowStart = rowStarts[y];
+				for (int x = 0; x < width; x++) {
+					grid.set(x, y, x < rowLengths[y] ? mapper.applyAsInt(text.get(ValueLayout.JAVA_BYTE, rowStart + x) & 0xFF) : outside);
+				}
+			}
+			return grid;
+		}
+	}
+
+	public int width() {
+		return width;
+	}
+
+	public int height() {
+		return height;
+	}
+
+	public int get(final int x, final int y) {
+		return cells.getAtIndex(ValueLayout.JAVA_INT, (long) y * width + x);
+	}
+
+	/**
+	 * @return The cell at ({@param x}, {@param y}) or {@param outside} if the coordinates are outside the grid
+	 */
+	public int getOrDefault(final int x, final int y, final int outside) {
+		if (x < 0 || y < 0 || x >= width || y >= height) {
+			return outside;
+		}
+		return get(x, y);
+	}
+
+	public void set(final int x, final int y, final int value) {
+		cells.setAtIndex(ValueLayout.JAVA_INT, (long) y * width + x, value);
+	}
+
+	public long sum() {
+		long result = 0L;
+		final long cellCount = (long) width * height;
+		for (long i = 0; i < cellCount; i++) {
+			result += cells.getAtIndex(ValueLayout.JAVA_INT, i);
+		}
+		return result;
+	}
+
+	public static void test() {
+		try (final Arena arena = Arena.ofConfined()) {
+			final SegmentGrid grid = allocate(arena, 3, 2);
+			grid.set(2, 1, 7);
+			Utils.expect(grid.get(2, 1), 7);
+			Utils.expect(grid.get(0, 0), 0);
+			Utils.expect(grid.getOrDefault(-1, 0, 9), 9);
+			Utils.expect(grid.getOrDefault(2, 2, 9), 9);
+			Utils.expect(grid.sum(), 7L);
+
+			final Path file = Files.createTempFile("segment-grid", ".txt");
+			try {
+				Files.writeString(file, "#.#\r\n..#\n");
+				final SegmentGrid mapped = mapCharacters(arena, file, c -> c == '#' ? 1 : 0, 0);
+				Utils.expect(mapped.width(), 3);
+				Utils.expect(mapped.height(), 2);
+				Utils.expect(mapped.get(0, 0), 1);
+				Utils.expect(mapped.get(1, 1), 0);
+				Utils.expect(mapped.get(2, 1), 1);
+				Utils.expect(mapped.sum(), 3L);
+
+				// Ragged rows are padded the same as in a StencilGrid
+				final String ragged = "#.#\n#\n\n.##.\n";
+				Files.writeString(file, ragged);
+				final SegmentGrid paddedMapped = mapCharacters(arena, file, c -> c == '#' ? 1 : 0, 5);
+				final Utils.StencilGrid padded = Utils.StencilGrid.of(ragged, c -> c == '#' ? 1 : 0, 5);
+				Utils.expect(paddedMapped.width(), 4);
+				Utils.expect(paddedMapped.height(), padded.height());
+				for (int y = 0; y < padded.height(); y++) {
+					for (int x = 0; x < padded.width(); x++) {
+						Utils.expect(paddedMapped.get(x, y), padded.get(x, y));
+					}
+				}
+			} finally {
+				Files.deleteIfExists(file);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,308 @@
+package fi.kissakala;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Splits a counting job over an index range into shards and runs each shard in its own worker JVM, so every shard
+ * has its own heap and GC. Workers are started with {@link ProcessBuilder} and speak a line protocol on their standard
+ * streams:
+ * <ul>
+ *     <li>In: {@code <job class>\t<spec>} and then {@code <from> <to>}, after which standard input is closed</li>
+ *     <li>Out: {@code <from> <to> <count>} for each finished piece of the range, in order</li>
+ * </ul>
+ * When a worker dies, exits before reporting its whole shard or reports nothing for longer than the piece timeout,
+ * the part of its shard it had not reported yet is retried in a new worker. When a shard fails for good, or the
+ * caller is interrupted, every other worker is destroyed too.
+ * <p>
+ * System properties:
+ * <ul>
+ *     <li>{@code everybodycodes.shards}: number of worker JVMs, defaults to 0 which counts in this JVM</li>
+ *     <li>{@code everybodycodes.shards.pieceTimeout}: seconds to wait for each piece of a shard, defaults to 600</li>
+ * </ul>
+ */
+public final class ShardRunner {
+	/**
+	 * Counting job, created in the worker from its spec by a constructor taking the spec as a single {@code String}
+	 */
+	public interface Job {
+		/**
+		 * @return Size of the index range, {@code [0, size)}
+		 */
+		long size();
+
+		long count(long from, long to) throws Exception;
+	}
+
+	private static final int PIECES_PER_SHARD = 64;
+
+	private final int workers;
+	private final int attempts;
+	private final Duration pieceTimeout;
+	private final List<String> command;
+
+	public ShardRunner(final int workers) {
+		this(workers, 3, Duration.ofSeconds(Long.getLong("everybodycodes.shards.pieceTimeout", 600L)), workerCommand());
+	}
+
+	ShardRunner(final int workers, final int attempts, final Duration pieceTimeout, final List<String> command) {
+		this.workers = workers;
+		this.attempts = attempts;
+		this.pieceTimeout = pieceTimeout;
+		this.command = command;
+	}
+
+	/**
+	 * @return Number of worker JVMs, 0 or less to count in this JVM
+	 */
+	public int workers() {
+		return workers;
+	}
+
+	private static final class DefaultHolder {
+		private static final ShardRunner INSTANCE = new ShardRunner(Integer.getInteger("everybodycodes.shards", 0));
+	}
+
+	public static ShardRunner getDefault() {
+		return DefaultHolder.INSTANCE;
+	}
+
+	/**
+	 * This JVM's executable, class path and options, running {@link EverybodyCodes} as a worker
+	 */
+	private static List<String> workerCommand() {
+		final List<String> command = new ArrayList<>();
+		command.add(ProcessHandle.current().info().command().orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString()));
+		for (final String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+			// A second debugger, agent or recording on the same port or file would fail the worker
+			if (!argument.startsWith("-agentlib") && !argument.startsWith("-javaagent") && !argument.startsWith("-XX:StartFlightRecording")) {
+				command.add(argument);
+			}
+		}
+		command.addAll(List.of("-cp", System.getProperty("java.class.path"), EverybodyCodes.class.getName(), "--shard-worker"));
+		return command;
+	}
+
+	/**
+	 * @param jobClass Job to create from {@param spec}, in this JVM or in each worker
+	 * @return Sum of the counts over the whole index range of the job
+	 */
+	public long count(final Class<? extends Job> jobClass, final String spec) throws Exception {
+		final Job job = createJob(jobClass.getName(), spec);
+		if (workers <= 0) {
+			return job.count(0L, job.size());
+		}
+
+		final long size = job.size();
+		final Set<Process> processes = ConcurrentHashMap.newKeySet();
+		final List<Thread> threads = new ArrayList<>(workers);
+		final List<CompletableFuture<Long>> shards = new ArrayList<>(workers);
+		final Runnable cancel = () -> {
+			threads.forEach(Thread::interrupt);
+			processes.forEach(Process::destroyForcibly);
+		};
+		for (int shard = 0; shard < workers; shard++) {
+			final long from = size * shard / workers;
+			final long to = size * (shard + 1) / workers;
+			final CompletableFuture<Long> future = new CompletableFuture<>();
+			shards.add(future);
+			threads.add(Thread.ofVirtual().name("shard [%d, %d)".formatted(from, to)).unstarted(() -> {
+				try {
+					future.complete(runShard(jobClass.getName(), spec, from, to, processes));
+				} catch (Exception e) {
+					future.completeExceptionally(e);
+					cancel.run();
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+
+		try {
+			// A failing shard cancels the others, so this returns soon after the first failure
+			InputPrefetcher.await(CompletableFuture.allOf(shards.toArray(CompletableFuture[]::new)));
+		} catch (Exception e) {
+			cancel.run();
+			for (final CompletableFuture<Long> shard : shards) {
+				if (shard.isCompletedExceptionally() && !(shard.exceptionNow() instanceof InterruptedException)) {
+					InputPrefetcher.await(shard); // The shard that failed first, not one that was cancelled because of it
+				}
+			}
+			throw e;
+		}
+
+		long result = 0L;
+		for (final CompletableFuture<Long> shard : shards) {
+			result += shard.join();
+		}
+		return result;
+	}
+
+	/**
+	 * @param processes Running workers, so that they can be destroyed when another shard fails
+	 */
+	private long runShard(final String jobClass, final String spec, final long from, final long to, final Set<Process> processes) throws IOException, InterruptedException {
+		long next = from;
+		long result = 0L;
+		String failure = "no attempts";
+		for (int attempt = 1; attempt <= attempts && next < to; attempt++) {
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+			final Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+			processes.add(process);
+			try {
+				try (final Writer in = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8)) {
+					in.write("%s\t%s\n%d %d\n".formatted(jobClass, Utils.escapeField(spec), next, to));
+				}
+
+				final BlockingQueue<Optional<String>> lines = readLines(process);
+				Optional<String> line;
+				while ((line = lines.poll(pieceTimeout.toMillis(), TimeUnit.MILLISECONDS)) != null && line.isPresent()) {
+					final String[] fields = line.get().split(" ");
+					if (fields.length != 3 || Long.parseLong(fields[0]) != next) {
+						throw new IllegalStateException("Unexpected line from worker: " + line.get());
+					}
+					next = Long.parseLong(fields[1]);
+					result += Long.parseLong(fields[2]);
+				}
+				if (line == null) {
+					process.destroyForcibly();
+					failure = "no progress in " + pieceTimeout;
+				}
+				final int exitCode = process.waitFor();
+				if (line != null && next < to) {
+					failure = "exit code %d".formatted(exitCode);
+				}
+			} finally {
+				process.destroyForcibly(); // Only does something when the attempt failed
+				processes.remove(process);
+			}
+		}
+		if (next < to) {
+			throw new IllegalStateException("Shard [%d, %d) failed %d times, stopped at %d, last with %s".formatted(from, to, attempts, next, failure));
+		}
+		return result;
+	}
+
+	/**
+	 * @return Lines of the worker's standard output as they arrive, read on a virtual thread, then an empty end marker
+	 */
+	private static BlockingQueue<Optional<String>> readLines(final Process process) {
+		final BlockingQueue<Optional<String>> lines = new LinkedBlockingQueue<>();
+		Thread.ofVirtual().name("shard output " + process.pid()).start(() -> {
+			try (final BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = out.readLine()) != null) {
+					lines.add(Optional.of(line));
+				}
+			} catch (IOException _) {
+				// The worker was destroyed, it is retried like one that died
+			} finally {
+				lines.add(Optional.empty());
+			}
+		});
+		return lines;
+	}
+
+	/**
+	 * Worker side of the protocol, reading its shard from {@param in} and reporting to {@param out}
+	 */
+	static void work(final BufferedReader in, final Writer out) throws Exception {
+		final String[] header = in.readLine().split("\t", 2);
+		final Job job = createJob(header[0], Utils.unescapeField(header[1]));
+		final String[] range = in.readLine().split(" ");
+		final long from = Long.parseLong(range[0]);
+		final long to = Long.parseLong(range[1]);
+
+		final long piece = Math.max(1L, (to - from + PIECES_PER_SHARD - 1) / PIECES_PER_SHARD);
+		for (long start = from; start < to; start += piece) {
+			final long end = Math.min(to, start + piece);
+			out.write("%d %d %d\n".formatted(start, end, job.count(start, end)));
+			out.flush();
+		}
+	}
+
+	private static Job createJob(final String jobClass, final String spec) throws ReflectiveOperationException {
+		final var constructor = Class.forName(jobClass).asSubclass(Job.class).getDeclaredConstructor(String.class);
+		constructor.setAccessible(true);
+		return constructor.newInstance(spec);
+	}
+
+	/**
+	 * Counts the multiples of a number in its range. With a marker file in the spec, the first worker to reach the
+	 * middle of the range creates the file and dies, or hangs if the spec ends with {@code hang}.
+	 */
+	private static final class MultiplesJob implements Job {
+		private final long size;
+		private final long divisor;
+		private final Path crashMarker;
+		private final boolean hang;
+
+		private MultiplesJob(final String spec) {
+			final String[] fields = spec.split("\t");
+			this.size = Long.parseLong(fields[0]);
+			this.divisor = Long.parseLong(fields[1]);
+			this.crashMarker = fields.length > 2 ? Path.of(fields[2]) : null;
+			this.hang = fields.length > 3 && fields[3].equals("hang");
+		}
+
+		@Override
+		public long size() {
+			return size;
+		}
+
+		@Override
+		public long count(final long from, final long to) throws IOException, InterruptedException {
+			if (crashMarker != null && from <= size / 2 && size / 2 < to && !Files.exists(crashMarker)) {
+				Files.createFile(crashMarker);
+				if (hang) {
+					Thread.sleep(Long.MAX_VALUE);
+				}
+				Runtime.getRuntime().halt(3);
+			}
+			return (to + divisor - 1) / divisor - (from + divisor - 1) / divisor;
+		}
+	}
+
+	public static void test() throws Exception {
+		Utils.expect(new ShardRunner(0).count(MultiplesJob.class, "1000\t7"), 143L);
+
+		// Worker protocol without starting a JVM
+		final StringWriter out = new StringWriter();
+		work(new BufferedReader(new StringReader(MultiplesJob.class.getName() + "\t100\\t7\n10 20\n")), out);
+		Utils.expect(out.toString(), "10 11 0\n11 12 0\n12 13 0\n13 14 0\n14 15 1\n15 16 0\n16 17 0\n17 18 0\n18 19 0\n19 20 0\n");
+
+		final Path dir = Files.createTempDirectory("shard-runner");
+		final Path marker = dir.resolve("crashed");
+		try {
+			Utils.expect(new ShardRunner(2).count(MultiplesJob.class, "100000\t3\t" + marker), 33334L);
+			Utils.expect(Files.exists(marker), true);
+
+			// A hung worker is destroyed after the piece timeout and retried
+			Files.delete(marker);
+			final ShardRunner impatient = new ShardRunner(2, 3, Duration.ofSeconds(2L), workerCommand());
+			Utils.expect(impatient.count(MultiplesJob.class, "100000\t3\t%s\thang".formatted(marker)), 33334L);
+
+			// Without retries the dead worker fails the count with its exit code
+			Files.delete(marker);
+			try {
+				new ShardRunner(2, 1, Duration.ofSeconds(60L), workerCommand()).count(MultiplesJob.class, "100000\t3\t" + marker);
+				throw new AssertionError("Counted without a shard");
+			} catch (IllegalStateException e) {
+				Utils.expect(e.getMessage().endsWith("last with exit code 3"), true);
+			}
+		} finally {
+			Files.deleteIfExists(marker);
+			Files.deleteIfExists(dir);
+		}
+	}
+}
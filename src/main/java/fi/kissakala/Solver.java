@@ -0,0 +1,124 @@
+package fi.kissakala;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * A single quest part: where its input lives and how to solve it from the input text
+ * @param event Event name, also the directory of the input resources, e.g. {@code TheKingdomOfAlgorithmia}
+ * @param version Bump when the solver changes in a way that may change its answer, see {@link AnswerCache}
+ * @param inputs Input resources, passed to {@param function} in the same order
+ */
+public record Solver(String event, int quest, int part, int version, List<String> inputs, SolveFunction function) {
+	@FunctionalInterface
+	public interface SolveFunction {
+		Object solve(String... inputs) throws Exception;
+
+		/**
+		 * See {@link QuestSolver#solveFile}
+		 */
+		default Object solveFile(final Path input, final String... extraInputs) throws Exception {
+			return solve(withFirstInput(input, extraInputs));
+		}
+
+		/**
+		 * @return Hash of the solver's code for the {@link AnswerCache}, empty if there is none
+		 */
+		default String fingerprint() {
+			return "";
+		}
+	}
+
+	/**
+	 * @return Contents of {@param input} followed by {@param extraInputs}
+	 */
+	static String[] withFirstInput(final Path input, final String... extraInputs) throws IOException {
+		final String[] inputs = new String[extraInputs.length + 1];
+		inputs[0] = Files.readString(input, StandardCharsets.UTF_8);
+		System.arraycopy(extraInputs, 0, inputs, 1, extraInputs.length);
+		return inputs;
+	}
+
+	/**
+	 * Solver reading {@code <event>/Quest<quest>Part<part>.txt} followed by {@param extraInputs}
+	 */
+	public static Solver of(final String event, final int quest, final int part, final int version, final SolveFunction function, final String... extraInputs) {
+		final String[] inputs = new String[extraInputs.length + 1];
+		inputs[0] = "%s/Quest%dPart%d.txt".formatted(event, quest, part);
+		System.arraycopy(extraInputs, 0, inputs, 1, extraInputs.length);
+		return new Solver(event, quest, part, version, List.of(inputs), function);
+	}
+
+	/**
+	 * @return Unique id, e.g. {@code TheKingdomOfAlgorithmia/Quest1Part1}
+	 */
+	public String id() {
+		return "%s/Quest%dPart%d".formatted(event, quest, part);
+	}
+
+	/**
+	 * Whether this solver is selected by {@param selector}, which is either the full id, the id without the event
+	 * ({@code Quest7Part3}) or a whole quest ({@code Quest7}, {@code TheKingdomOfAlgorithmia/Quest7}) or event.
+	 */
+	public boolean matches(final String selector) {
+		final String questId = "Quest" + quest;
+		final String shortId = "%sPart%d".formatted(questId, part);
+		return selector.equals(event)
+			|| selector.equals(questId) || selector.equals(event + "/" + questId)
+			|| selector.equals(shortId) || selector.equals(event + "/" + shortId);
+	}
+
+	public AnswerCache.Key cacheKey() throws Exception {
+		return AnswerCache.key(id(), version, function.fingerprint(), inputs.toArray(String[]::new));
+	}
+
+	/**
+	 * Key from the prefetched contents, so the inputs are not read again just to hash them
+	 */
+	public AnswerCache.Key cacheKey(final InputPrefetcher prefetcher) throws Exception {
+		final List<byte[]> contents = new ArrayList<>(inputs.size());
+		for (final String input : inputs) {
+			contents.add(InputPrefetcher.await(prefetcher.bytes(input)));
+		}
+		return AnswerCache.key(id(), version, function.fingerprint(), contents);
+	}
+
+	public Object solve(final String... inputs) throws Exception {
+		return function.solve(inputs);
+	}
+
+	/**
+	 * Solve using the registered input resources
+	 */
+	public Object solve() throws Exception {
+		final String[] texts = new String[inputs.size()];
+		for (int i = 0; i < texts.length; i++) {
+			texts[i] = Utils.readInput(inputs.get(i));
+		}
+		return function.solve(texts);
+	}
+
+	/**
+	 * Solve with the first input read from {@param input} by the solver itself, see {@link QuestSolver#solveFile}
+	 */
+	public Object solveFile(final Path input, final String... extraInputs) throws Exception {
+		return function.solveFile(input, extraInputs);
+	}
+
+	/**
+	 * Solve once {@param inputs} are available, e.g. from {@link InputPrefetcher#texts}
+	 */
+	public Object solve(final Future<String[]> inputs) throws Exception {
+		return function.solve(InputPrefetcher.await(inputs));
+	}
+
+	@Override
+	public String toString() {
+		return id();
+	}
+}
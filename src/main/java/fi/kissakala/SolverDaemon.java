@@ -0,0 +1,199 @@
+package fi.kissakala;
+
+import java.io.*;
+import java.net.ConnectException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Long-lived solver process listening on a Unix domain socket, so repeated solves skip JVM startup and JIT warmup.
+ * <p>
+ * One request per line: {@code <solver id>[\t<input>...]}, where the solver id is either the full id or the id without
+ * the event, and an input is {@code file:<path>} or {@code inline:<text>} escaped with {@link Utils#escapeField}.
+ * Without inputs the solver's own resources are used. Every request is answered with one line,
+ * {@code ok\t<micros>\t<result>} or {@code error\t<message>}.
+ */
+public final class SolverDaemon implements Closeable {
+	public static final Path DEFAULT_SOCKET = Path.of(System.getProperty("java.io.tmpdir"), "everybodycodes.sock");
+
+	private final Path socket;
+	private final Map<String, Solver> solvers = new HashMap<>();
+	private final ServerSocketChannel server;
+
+	public SolverDaemon(final Path socket, final List<Solver> solvers) throws IOException {
+		this.socket = socket;
+		for (final Solver solver : solvers) {
+			this.solvers.put(solver.id(), solver);
+			this.solvers.putIfAbsent(solver.id().substring(solver.event().length() + 1), solver);
+		}
+
+		removeStaleSocket(socket);
+		this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		this.server.bind(UnixDomainSocketAddress.of(socket));
+	}
+
+	/**
+	 * Delete a socket file left behind by a previous daemon. Anything else at {@param socket}, including the socket of a
+	 * daemon that still accepts connections, is kept and fails the start.
+	 */
+	private static void removeStaleSocket(final Path socket) throws IOException {
+		final BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(socket, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+		} catch (NoSuchFileException _) {
+			return;
+		}
+		// Sockets are neither regular files, directories nor links
+		if (!attributes.isOther()) {
+			throw new FileAlreadyExistsException(socket.toString(), null, "Not a socket, refusing to replace it");
+		}
+		try (final SocketChannel _ = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+			throw new FileAlreadyExistsException(socket.toString(), null, "Daemon already running");
+		} catch (ConnectException _) {
+			// Nobody listening
+		}
+		Files.delete(socket);
+	}
+
+	/**
+	 * Accept connections until {@link #close()}, each served on its own virtual thread
+	 */
+	public void serve() throws IOException {
+		try {
+			while (true) {
+				final SocketChannel channel = server.accept();
+				Thread.ofVirtual().name("solver-daemon-client").start(() -> handle(channel));
+			}
+		} catch (AsynchronousCloseException _) {
+			// closed
+		}
+	}
+
+	private void handle(final SocketChannel channel) {
+		try (channel;
+			 final BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+			 final Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				writer.write(handleRequest(line));
+				writer.write('\n');
+				writer.flush();
+			}
+		} catch (IOException e) {
+			IO.println("Client connection failed: " + e);
+		}
+	}
+
+	private String handleRequest(final String line) {
+		final String[] fields = line.split("\t", -1);
+		final Solver solver = solvers.get(fields[0]);
+		if (solver == null) {
+			return "error\t" + Utils.escapeField("Unknown solver " + fields[0]);
+		}
+
+		try {
+			final long startTime = System.nanoTime();
+			final Object result;
+			if (fields.length == 1) {
+				result = solver.solve();
+			}
+			else {
+				final String[] inputs = new String[fields.length - 1];
+				for (int i = 0; i < inputs.length; i++) {
+					inputs[i] = readInput(fields[i + 1]);
+				}
+				result = solver.solve(inputs);
+			}
+			return "ok\t%d\t%s".formatted((System.nanoTime() - startTime) / 1_000L, Utils.escapeField(String.valueOf(result)));
+		} catch (Exception | AssertionError e) {
+			return "error\t" + Utils.escapeField(String.valueOf(e));
+		}
+	}
+
+	private static String readInput(final String field) throws IOException {
+		if (field.startsWith("file:")) {
+			return Files.readString(Path.of(field.substring("file:".length())), StandardCharsets.UTF_8);
+		}
+		if (field.startsWith("inline:")) {
+			return Utils.unescapeField(field.substring("inline:".length()));
+		}
+		throw new IllegalArgumentException("Input must start with file: or inline:");
+	}
+
+	@Override
+	public void close() throws IOException {
+		server.close();
+		Files.deleteIfExists(socket);
+	}
+
+	public static void test() throws IOException {
+		final Path dir = Files.createTempDirectory("solver-daemon");
+		final Path input = dir.resolve("input.txt");
+		Files.writeString(input, "ABC");
+
+		try (final SolverDaemon daemon = new SolverDaemon(dir.resolve("test.sock"), List.of(Solver.of("Test", 1, 1, 1, inputs -> inputs[0].length())))) {
+			Thread.ofVirtual().start(() -> {
+				try {
+					daemon.serve();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+
+			try (final SocketChannel client = SocketChannel.open(UnixDomainSocketAddress.of(dir.resolve("test.sock")));
+				 final BufferedReader reader = new BufferedReader(Channels.newReader(client, StandardCharsets.UTF_8));
+				 final Writer writer = Channels.newWriter(client, StandardCharsets.UTF_8)) {
+				writer.write("Test/Quest1Part1\tinline:" + Utils.escapeField("A\nB") + "\n");
+				writer.write("Quest1Part1\tfile:" + input + "\n");
+				writer.write("Quest2Part1\n");
+				writer.flush();
+
+				Utils.expect(reader.readLine().matches("ok\t\\d+\t3"), true);
+				Utils.expect(reader.readLine().matches("ok\t\\d+\t3"), true);
+				Utils.expect(reader.readLine(), "error\tUnknown solver Quest2Part1");
+			}
+
+			// The socket of a running daemon is not taken over
+			try (final SolverDaemon _ = new SolverDaemon(dir.resolve("test.sock"), List.of())) {
+				throw new AssertionError("Took over the socket of a running daemon");
+			} catch (FileAlreadyExistsException e) {
+				Utils.expect(e.getReason(), "Daemon already running");
+			}
+			try (final SocketChannel client = SocketChannel.open(UnixDomainSocketAddress.of(dir.resolve("test.sock")));
+				 final BufferedReader reader = new BufferedReader(Channels.newReader(client, StandardCharsets.UTF_8));
+				 final Writer writer = Channels.newWriter(client, StandardCharsets.UTF_8)) {
+				writer.write("Quest1Part1\tinline:AB\n");
+				writer.flush();
+				Utils.expect(reader.readLine().matches("ok\t\\d+\t2"), true);
+			}
+
+			// A socket path that is a regular file is never deleted
+			try (final SolverDaemon _ = new SolverDaemon(input, List.of())) {
+				throw new AssertionError("Replaced a regular file with a socket");
+			} catch (FileAlreadyExistsException _) {
+				Utils.expect(Files.readString(input, StandardCharsets.UTF_8), "ABC");
+			}
+
+			// A socket left behind by a daemon that did not close is replaced
+			final Path stale = dir.resolve("stale.sock");
+			try (final ServerSocketChannel previous = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+				previous.bind(UnixDomainSocketAddress.of(stale));
+			}
+			new SolverDaemon(stale, List.of()).close();
+			Utils.expect(Files.exists(stale), false);
+		} finally {
+			Files.deleteIfExists(input);
+			Files.deleteIfExists(dir);
+		}
+	}
+}
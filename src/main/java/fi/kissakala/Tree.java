@@ -1,18 +1,55 @@
 package fi.kissakala;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Simple generic tree
  */
 @SuppressWarnings({"unused", "UnusedReturnValue"})
 public record Tree<T>(Node<T> root) {
+	private static final WorkCounter NODES_VISITED = WorkCounter.of("Tree nodes visited");
+
+	/**
+	 * Node with intrusive parent and sibling links, so detaching and re-parenting a subtree are O(1).
+	 * <p>
+	 * Depth, subtree size and height are cached. Moving a subtree marks the depths in it stale, stopping at nodes that
+	 * already are, since a node with a valid depth only has ancestors with valid depths. Depths are recomputed on the
+	 * next query, walking up only as far as the first valid ancestor. Subtree size and height are marked stale from the
+	 * changed node up to the first already stale ancestor, and recomputed on the next query from the stale nodes only.
+	 * Each node is made stale at most once per recomputation, so both are amortized O(1) per changed node.
+	 * <p>
+	 * Nodes frozen by {@link ConcurrentBuilder} get all three when they are frozen and never change, so reading them
+	 * only reads and is safe from any thread.
+	 */
 	public static class Node<T> {
 		private final T value;
-		private final List<Node<T>> children = new ArrayList<>();
 
-		private Tree<T> tree;
+		private Tree<T> tree; // Only read from the root, see getTree()
 		private Node<T> parent;
+		private Node<T> firstChild;
+		private Node<T> lastChild;
+		private Node<T> previousSibling;
+		private Node<T> nextSibling;
+		private int childCount;
+
+		// Valid unless pathStale; a valid node only has valid ancestors
+		private boolean pathStale = true;
+		private int depth;
+		private Node<T> root;
+
+		// Valid unless aggregatesStale; a valid node only has valid descendants
+		private boolean aggregatesStale;
+		private int subtreeSize = 1;
+		private int height;
+
+		private boolean frozen; // Set by ConcurrentBuilder
 
 		public Node(final T value) {
 			this.value = value;
@@ -21,21 +58,55 @@ public record Tree<T>(Node<T> root) {
 		public Node(final T value, final Node<T> parent) {
 			this.value = value;
 			this.parent = parent;
-			this.tree = parent.getTree();
 		}
 
 		/**
-		 * Add child
+		 * Add child as the last child, detaching it from its current parent first
 		 * @param child Child to add
 		 * @return The added child
+		 * @throws IllegalArgumentException If {@param child} is this node or one of its ancestors
 		 */
 		public Node<T> addChild(final Node<T> child) {
-			child.setTree(this.getTree());
-			child.setParent(this);
-			this.children.add(child);
+			if (frozen || child.frozen) {
+				throw new UnsupportedOperationException("Tree is frozen");
+			}
+			if (isDescendantOf(child)) {
+				throw new IllegalArgumentException("Cannot move %s under its own descendant %s".formatted(child, this));
+			}
+			if (child.parent != null) {
+				child.parent.unlink(child);
+			}
+
+			child.parent = this;
+			child.previousSibling = lastChild;
+			if (lastChild == null) {
+				firstChild = child;
+			} else {
+				lastChild.nextSibling = child;
+			}
+			lastChild = child;
+			childCount++;
+
+			child.markPathsStale();
+			markAggregatesStale();
 			return child;
 		}
 
+		/**
+		 * Whether {@param ancestor} is this node or above it, walking up only the difference in cached depth
+		 */
+		private boolean isDescendantOf(final Node<T> ancestor) {
+			int steps = getDepth() - ancestor.getDepth();
+			if (steps < 0 || getRoot() != ancestor.getRoot()) {
+				return false;
+			}
+			Node<T> node = this;
+			for (; steps > 0; steps--) {
+				node = node.parent;
+			}
+			return node == ancestor;
+		}
+
 		/**
 		 * Create and add child with the given {@param childValue}
 		 * @return The added child
@@ -45,37 +116,205 @@ public record Tree<T>(Node<T> root) {
 		}
 
 		/**
-		 * Remove child
+		 * Remove child. The child becomes the root of its own detached subtree, so neither it nor any of its descendants
+		 * belongs to a tree anymore.
 		 * @param child Child to remove
+		 * @throws IllegalArgumentException If {@param child} is not a child of this node
 		 */
 		public void removeChild(final Node<T> child) {
-			child.setTree(null);
-			child.setParent(null);
-			this.children.remove(child);
+			if (frozen) {
+				throw new UnsupportedOperationException("Tree is frozen");
+			}
+			if (child.parent != this) {
+				throw new IllegalArgumentException(child + " is not a child of " + this);
+			}
+			unlink(child);
+			child.tree = null;
+			child.markPathsStale();
+		}
+
+		/**
+		 * Move this node and its subtree under {@param newParent}, as its last child
+		 */
+		public void moveTo(final Node<T> newParent) {
+			newParent.addChild(this);
+		}
+
+		private void unlink(final Node<T> child) {
+			if (child.previousSibling == null) {
+				firstChild = child.nextSibling;
+			} else {
+				child.previousSibling.nextSibling = child.nextSibling;
+			}
+			if (child.nextSibling == null) {
+				lastChild = child.previousSibling;
+			} else {
+				child.nextSibling.previousSibling = child.previousSibling;
+			}
+			child.parent = null;
+			child.previousSibling = null;
+			child.nextSibling = null;
+			childCount--;
+			markAggregatesStale();
+		}
+
+		private void markPathsStale() {
+			final Deque<Node<T>> stack = new ArrayDeque<>();
+			stack.push(this);
+			while (!stack.isEmpty()) {
+				final Node<T> node = stack.pop();
+				if (node.pathStale) continue; // So are all its descendants
+				node.pathStale = true;
+				for (Node<T> child = node.firstChild; child != null; child = child.nextSibling) {
+					stack.push(child);
+				}
+			}
+		}
+
+		private void markAggregatesStale() {
+			for (Node<T> node = this; node != null && !node.aggregatesStale; node = node.parent) {
+				node.aggregatesStale = true;
+			}
 		}
 
 		public T getValue() {
 			return value;
 		}
 
+		/**
+		 * @return The tree whose root is the topmost ancestor of this node, or null if that ancestor is not a tree root
+		 */
 		public Tree<T> getTree() {
-			return tree;
+			return getRoot().tree;
+		}
+
+		/**
+		 * @return Topmost ancestor, or this node if it has no parent
+		 */
+		public Node<T> getRoot() {
+			refreshPath();
+			return root;
+		}
+
+		/**
+		 * @return Number of edges from the root
+		 */
+		public int getDepth() {
+			refreshPath();
+			return depth;
+		}
+
+		/**
+		 * @return Number of nodes in the subtree rooted at this node, including itself
+		 */
+		public int getSubtreeSize() {
+			refreshAggregates();
+			return subtreeSize;
+		}
+
+		/**
+		 * @return Number of edges on the longest downward path from this node, 0 for a leaf
+		 */
+		public int getHeight() {
+			refreshAggregates();
+			return height;
+		}
+
+		private void refreshPath() {
+			if (!pathStale) {
+				return;
+			}
+
+			final Deque<Node<T>> stale = new ArrayDeque<>();
+			for (Node<T> node = this; node != null && node.pathStale; node = node.parent) {
+				stale.push(node);
+			}
+			for (final Node<T> node : stale) { // Topmost first
+				node.depth = node.parent == null ? 0 : node.parent.depth + 1;
+				node.root = node.parent == null ? node : node.parent.root;
+				node.pathStale = false;
+			}
 		}
-		private void setTree(Tree<T> tree) {
-			this.tree = tree;
+
+		private void refreshAggregates() {
+			if (!aggregatesStale) {
+				return;
+			}
+
+			// Stale nodes in pre-order, then recomputed in reverse so children are done before their parents
+			final List<Node<T>> stale = new ArrayList<>();
+			final Deque<Node<T>> stack = new ArrayDeque<>();
+			stack.push(this);
+			while (!stack.isEmpty()) {
+				final Node<T> node = stack.pop();
+				stale.add(node);
+				for (Node<T> child = node.firstChild; child != null; child = child.nextSibling) {
+					if (child.aggregatesStale) {
+						stack.push(child);
+					}
+				}
+			}
+			for (int i = stale.size() - 1; i >= 0; i--) {
+				final Node<T> node = stale.get(i);
+				int size = 1;
+				int maxHeight = 0;
+				for (Node<T> child = node.firstChild; child != null; child = child.nextSibling) {
+					size += child.subtreeSize;
+					maxHeight = Math.max(maxHeight, child.height + 1);
+				}
+				node.subtreeSize = size;
+				node.height = maxHeight;
+				node.aggregatesStale = false;
+			}
 		}
 
 		public Node<T> getParent() {
 			return parent;
 		}
-		private void setParent(final Node<T> parent) {
-			this.parent = parent;
+
+		public Node<T> getFirstChild() {
+			return firstChild;
+		}
+
+		public Node<T> getLastChild() {
+			return lastChild;
+		}
+
+		public Node<T> getNextSibling() {
+			return nextSibling;
+		}
+
+		public Node<T> getPreviousSibling() {
+			return previousSibling;
 		}
 
+		/**
+		 * @return Snapshot of the children in insertion order, O(children)
+		 */
 		public List<Node<T>> getChildren() {
+			final List<Node<T>> children = new ArrayList<>(childCount);
+			for (Node<T> child = firstChild; child != null; child = child.nextSibling) {
+				children.add(child);
+			}
 			return Collections.unmodifiableList(children);
 		}
 
+		public int getChildCount() {
+			return childCount;
+		}
+
+		/**
+		 * O(index), prefer the sibling links when iterating
+		 */
+		public Node<T> getChild(final int index) {
+			Objects.checkIndex(index, childCount);
+			Node<T> child = firstChild;
+			for (int i = 0; i < index; i++) {
+				child = child.nextSibling;
+			}
+			return child;
+		}
+
 		@Override
 		public String toString() {
 			return String.valueOf(value);
@@ -84,7 +323,6 @@ public record Tree<T>(Node<T> root) {
 
 	public Tree(final Node<T> root) {
 		this.root = root;
-		this.root.setTree(this);
 		fixTree();
 	}
 
@@ -110,7 +348,7 @@ public record Tree<T>(Node<T> root) {
 			if (Objects.equals(n.getValue(), value)) {
 				result.add(n);
 			}
-			for (final Node<T> c : n.getChildren()) {
+			for (Node<T> c = n.firstChild; c != null; c = c.nextSibling) {
 				stack.push(c);
 			}
 		}
@@ -118,6 +356,88 @@ public record Tree<T>(Node<T> root) {
 		return result;
 	}
 
+	/**
+	 * Visit every node in pre-order (a node before its children, children in insertion order).
+	 * Follows the sibling links, so it does not allocate at all.
+	 */
+	public void visitPreOrder(final Consumer<? super Node<T>> visitor) {
+		long visited = 0L;
+		Node<T> node = root;
+		while (node != null) {
+			visitor.accept(node);
+			visited++;
+
+			if (node.firstChild != null) {
+				node = node.firstChild;
+				continue;
+			}
+			while (node != root && node.nextSibling == null) {
+				node = node.parent;
+			}
+			node = node == root ? null : node.nextSibling;
+		}
+		NODES_VISITED.add(visited);
+	}
+
+	/**
+	 * Visit every node in post-order (children in insertion order before their parent).
+	 * Follows the sibling links, so it does not allocate at all. The visitor may detach the node it is given.
+	 */
+	public void visitPostOrder(final Consumer<? super Node<T>> visitor) {
+		long visited = 0L;
+		Node<T> node = firstLeaf(root);
+		while (node != null) {
+			// Find the next node before visiting, in case the visitor detaches this one
+			final Node<T> next = node == root ? null : node.nextSibling != null ? firstLeaf(node.nextSibling) : node.parent;
+			visitor.accept(node);
+			visited++;
+			node = next;
+		}
+		NODES_VISITED.add(visited);
+	}
+	private static <T> Node<T> firstLeaf(Node<T> node) {
+		while (node.firstChild != null) {
+			node = node.firstChild;
+		}
+		return node;
+	}
+
+	/**
+	 * Visit every node level by level, starting from the root.
+	 * Does not allocate per node.
+	 */
+	public void visitBreadthFirst(final Consumer<? super Node<T>> visitor) {
+		final Deque<Node<T>> queue = new ArrayDeque<>();
+		queue.add(root);
+		long visited = 0L;
+
+		while (!queue.isEmpty()) {
+			final Node<T> node = queue.poll();
+			visitor.accept(node);
+			visited++;
+			for (Node<T> child = node.firstChild; child != null; child = child.nextSibling) {
+				queue.add(child);
+			}
+		}
+		NODES_VISITED.add(visited);
+	}
+
+	/**
+	 * Spliterator over all nodes that splits on subtrees, so parallel streams can fork large subtrees to other threads.
+	 * Encounter order is not defined.
+	 */
+	public Spliterator<Node<T>> spliterator() {
+		return new SubtreeSpliterator<>(root);
+	}
+
+	public Stream<Node<T>> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	public Stream<Node<T>> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
+
 	/**
 	 * Get the distance in number of edges between two node references.
 	 * @return >=0 or -1 if either nodes belong to different trees
@@ -132,33 +452,11 @@ public record Tree<T>(Node<T> root) {
 		}
 
 		// Validate same tree by checking root identity
-		if (a.getTree() != b.getTree()) {
+		if (a.getTree() != b.getTree() || a.getRoot() != b.getRoot()) {
 			return -1;
 		}
 
-		final Map<Node<T>, Integer> anc = new IdentityHashMap<>();
-		Node<T> cur = a;
-
-		// Map ancestors of a to distance from a
-		int dist = 0;
-		while (cur != null) {
-			anc.put(cur, dist);
-			cur = cur.getParent();
-			dist++;
-		}
-
-		// Walk up b's ancestors until we find an ancestor of a (LCA)
-		cur = b;
-		dist = 0;
-		while (cur != null) {
-			final Integer da = anc.get(cur);
-			if (da != null) {
-				return da + dist; // steps from a to LCA + steps from b to LCA
-			}
-			cur = cur.getParent();
-			dist++;
-		}
-		return -1; // should not happen if same tree, but safe fallback
+		return a.getDepth() + b.getDepth() - 2 * lowestCommonAncestor(a, b).getDepth();
 	}
 
 	/**
@@ -176,64 +474,287 @@ public record Tree<T>(Node<T> root) {
 		}
 
 		// verify same tree
-		if (start.getTree() != end.getTree()) {
+		if (start.getTree() != end.getTree() || start.getRoot() != end.getRoot()) {
 			throw new IllegalArgumentException("Nodes are NOT in the same tree");
 		}
 
-		// mark all ancestors of a (by identity)
-		final IdentityHashMap<Node<T>, Boolean> anc = new IdentityHashMap<>();
-		Node<T> cur = start;
-		while (cur != null) {
-			anc.put(cur, Boolean.TRUE);
-			cur = cur.getParent();
+		final Node<T> lca = lowestCommonAncestor(start, end);
+		final int tailLength = end.getDepth() - lca.getDepth();
+		final List<Node<T>> path = new ArrayList<>(start.getDepth() - lca.getDepth() + tailLength + 1);
+
+		// start -> ... -> lca
+		for (Node<T> cur = start; cur != lca; cur = cur.getParent()) {
+			path.add(cur);
+		}
+		path.add(lca);
+
+		// lca -> ... -> end, filled from the back while walking up from end
+		for (int i = 0; i < tailLength; i++) {
+			path.add(null);
+		}
+		int i = path.size() - 1;
+		for (Node<T> cur = end; cur != lca; cur = cur.getParent()) {
+			path.set(i--, cur);
+		}
+
+		return path;
+	}
+
+	/**
+	 * Lift the deeper node to the depth of the other, then both until they meet. Nodes must share a root.
+	 */
+	private static <T> Node<T> lowestCommonAncestor(Node<T> a, Node<T> b) {
+		int depthA = a.getDepth();
+		int depthB = b.getDepth();
+		for (; depthA > depthB; depthA--) {
+			a = a.getParent();
+		}
+		for (; depthB > depthA; depthB--) {
+			b = b.getParent();
+		}
+		while (a != b) {
+			a = a.getParent();
+			b = b.getParent();
 		}
+		return a;
+	}
 
-		// find the lowest common ancestor by walking up from b
-		Node<T> lca = null;
-		cur = end;
-		while (cur != null) {
-			if (anc.containsKey(cur)) {
-				lca = cur;
-				break;
+	/**
+	 * Make this the tree of the root and so of every node under it. O(1), as nodes find their tree through their root.
+	 */
+	public void fixTree() {
+		root.tree = this;
+	}
+
+	/**
+	 * Collects parent to child links from many threads and freezes them into a tree whose nodes can no longer be
+	 * added, removed or moved.
+	 * <p>
+	 * Nodes are looked up by value in a {@link ConcurrentHashMap}. A link claims the child's parent with one CAS and
+	 * pushes the child onto a lock-free stack of its parent, so linking never blocks. {@link #freeze} then threads the
+	 * sibling links in parallel, one parent per task, which only touches that parent and its own children.
+	 * Children of a parent keep the order in which their links were added, if they were added from one thread.
+	 */
+	public static final class ConcurrentBuilder<T> {
+		private static final VarHandle PARENT;
+		private static final VarHandle PENDING_CHILDREN;
+
+		static {
+			try {
+				final MethodHandles.Lookup lookup = MethodHandles.lookup();
+				PARENT = lookup.findVarHandle(Entry.class, "parent", Entry.class);
+				PENDING_CHILDREN = lookup.findVarHandle(Entry.class, "pendingChildren", Entry.class);
+			} catch (ReflectiveOperationException e) {
+				throw new ExceptionInInitializerError(e);
 			}
-			cur = cur.getParent();
 		}
-		if (lca == null) {
-			throw new RuntimeException("Should not happen");
+
+		private static final class Entry<T> {
+			private final Node<T> node;
+			private volatile Entry<T> parent;
+			private volatile Entry<T> pendingChildren; // Most recently linked child
+			private Entry<T> nextPending; // Previously linked sibling, written before the push that publishes it
+
+			private Entry(final T value) {
+				this.node = new Node<>(value);
+			}
 		}
 
-		// build path: a -> ... -> lca
-		final List<Node<T>> path = new ArrayList<>();
-		cur = start;
-		while (cur != lca) {
-			path.add(cur);
-			cur = cur.getParent();
+		private final ConcurrentHashMap<T, Entry<T>> entries = new ConcurrentHashMap<>();
+		private volatile boolean frozen;
+
+		/**
+		 * Make {@param child} a child of {@param parent}, creating either node if needed. Repeating a link does nothing.
+		 * @throws IllegalArgumentException If {@param child} already has a different parent
+		 */
+		public void link(final T parent, final T child) {
+			if (frozen) {
+				throw new IllegalStateException("Builder is frozen");
+			}
+			final Entry<T> parentEntry = entry(parent);
+			final Entry<T> childEntry = entry(child);
+			if (!PARENT.compareAndSet(childEntry, null, parentEntry)) {
+				if (childEntry.parent == parentEntry) {
+					return;
+				}
+				throw new IllegalArgumentException("%s already has parent %s, cannot link it to %s".formatted(child, childEntry.parent.node, parent));
+			}
+
+			Entry<T> head;
+			do {
+				head = parentEntry.pendingChildren;
+				childEntry.nextPending = head;
+			} while (!PENDING_CHILDREN.compareAndSet(parentEntry, head, childEntry));
 		}
-		path.add(lca);
 
-		// build tail from lca -> ... -> b by collecting b->...->lca then reversing (exclude lca)
-		final List<Node<T>> tail = new ArrayList<>();
-		cur = end;
-		while (cur != lca) {
-			tail.add(cur);
-			cur = cur.getParent();
+		/**
+		 * Add {@param value} as a node without linking it, e.g. a root without children
+		 */
+		public void add(final T value) {
+			entry(value);
 		}
-		Collections.reverse(tail);
-		path.addAll(tail);
 
-		return path;
+		private Entry<T> entry(final T value) {
+			final Entry<T> entry = entries.get(value);
+			return entry != null ? entry : entries.computeIfAbsent(value, Entry::new);
+		}
+
+		/**
+		 * Link all nodes and freeze them. All links must have completed, and the builder cannot be used afterward.
+		 * @throws IllegalStateException If some node is not under {@param rootValue}, or {@param rootValue} has a parent
+		 */
+		public Tree<T> freeze(final T rootValue) {
+			frozen = true;
+			final Entry<T> rootEntry = entries.get(rootValue);
+			if (rootEntry == null || rootEntry.parent != null) {
+				throw new IllegalStateException(rootValue + " is not a root");
+			}
+
+			entries.values().parallelStream().forEach(entry -> {
+				final Node<T> parent = entry.node;
+				// The stack holds the latest link first, so prepending restores the order of the links
+				for (Entry<T> pending = entry.pendingChildren; pending != null; pending = pending.nextPending) {
+					final Node<T> child = pending.node;
+					child.parent = parent;
+					child.nextSibling = parent.firstChild;
+					if (parent.firstChild == null) {
+						parent.lastChild = child;
+					} else {
+						parent.firstChild.previousSibling = child;
+					}
+					parent.firstChild = child;
+					parent.childCount++;
+				}
+				parent.frozen = true;
+			});
+			computeFrozenCaches(rootEntry.node);
+
+			final Tree<T> tree = new Tree<>(rootEntry.node);
+			if (rootEntry.node.getSubtreeSize() != entries.size()) {
+				throw new IllegalStateException("%d of %d nodes are not under %s".formatted(entries.size() - rootEntry.node.getSubtreeSize(), entries.size(), rootValue));
+			}
+			return tree;
+		}
+
+		/**
+		 * Depth and root top-down, then subtree size and height bottom-up, so no read of a frozen node writes.
+		 * Every parent is listed before its children, which is all the two passes need.
+		 */
+		private static <T> void computeFrozenCaches(final Node<T> root) {
+			final List<Node<T>> preOrder = new ArrayList<>();
+			final Deque<Node<T>> stack = new ArrayDeque<>();
+			stack.push(root);
+			while (!stack.isEmpty()) {
+				final Node<T> node = stack.pop();
+				preOrder.add(node);
+				for (Node<T> child = node.firstChild; child != null; child = child.nextSibling) {
+					stack.push(child);
+				}
+			}
+			for (final Node<T> node : preOrder) {
+				node.depth = node.parent == null ? 0 : node.parent.depth + 1;
+				node.root = root;
+				node.pathStale = false;
+			}
+			for (int i = preOrder.size() - 1; i >= 0; i--) {
+				final Node<T> node = preOrder.get(i);
+				int size = 1;
+				int maxHeight = 0;
+				for (Node<T> child = node.firstChild; child != null; child = child.nextSibling) {
+					size += child.subtreeSize;
+					maxHeight = Math.max(maxHeight, child.height + 1);
+				}
+				node.subtreeSize = size;
+				node.height = maxHeight;
+				node.aggregatesStale = false;
+			}
+		}
 	}
 
-	public void fixTree() {
-		final Deque<Node<T>> stack = new ArrayDeque<>();
-		stack.push(root);
+	/**
+	 * Holds a stack of pending subtree roots. Splitting hands over half of the pending subtrees,
+	 * or expands a single pending subtree into its children when there is nothing else to hand over.
+	 */
+	private static final class SubtreeSpliterator<T> implements Spliterator<Node<T>> {
+		private final Deque<Node<T>> pending = new ArrayDeque<>();
+		private Node<T> head;
+		private long estimatedSize;
+
+		private SubtreeSpliterator(final Node<T> root) {
+			this.pending.push(root);
+			this.estimatedSize = Long.MAX_VALUE;
+		}
 
-		while (!stack.isEmpty()) {
-			final Node<T> node = stack.pop();
-			node.setTree(this);
-			for (final Node<T> child : node.getChildren()) {
-				stack.push(child);
+		private SubtreeSpliterator(final long estimatedSize) {
+			this.estimatedSize = estimatedSize;
+		}
+
+		@Override
+		public boolean tryAdvance(final Consumer<? super Node<T>> action) {
+			if (head != null) {
+				final Node<T> node = head;
+				head = null;
+				action.accept(node);
+				return true;
+			}
+
+			final Node<T> node = pending.poll();
+			if (node == null) {
+				return false;
+			}
+
+			for (Node<T> child = node.lastChild; child != null; child = child.previousSibling) {
+				pending.push(child);
+			}
+			action.accept(node);
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(final Consumer<? super Node<T>> action) {
+			if (head != null) {
+				action.accept(head);
+				head = null;
+			}
+
+			Node<T> node;
+			while ((node = pending.poll()) != null) {
+				for (Node<T> child = node.lastChild; child != null; child = child.previousSibling) {
+					pending.push(child);
+				}
+				action.accept(node);
+			}
+		}
+
+		@Override
+		public Spliterator<Node<T>> trySplit() {
+			if (pending.size() == 1 && head == null && pending.peek().childCount > 1) {
+				// Emit the subtree root ourselves and make its children splittable
+				head = pending.pop();
+				for (Node<T> child = head.firstChild; child != null; child = child.nextSibling) {
+					pending.add(child);
+				}
+			}
+			if (pending.size() < 2) {
+				return null;
+			}
+
+			estimatedSize >>>= 1;
+			final SubtreeSpliterator<T> split = new SubtreeSpliterator<>(estimatedSize);
+			for (int i = pending.size() / 2; i > 0; i--) {
+				split.pending.add(pending.pollLast());
 			}
+			return split;
+		}
+
+		@Override
+		public long estimateSize() {
+			return estimatedSize;
+		}
+
+		@Override
+		public int characteristics() {
+			return NONNULL;
 		}
 	}
 
@@ -287,5 +808,152 @@ public record Tree<T>(Node<T> root) {
 
 		// same-node path
 		Utils.expect(tree.getPath(root, root).size(), 1);
+
+		// visitors
+		final StringBuilder preOrder = new StringBuilder();
+		tree.visitPreOrder(n -> preOrder.append(n.getValue()));
+		Utils.expect(preOrder.toString(), "rootBCBDC");
+
+		final StringBuilder postOrder = new StringBuilder();
+		tree.visitPostOrder(n -> postOrder.append(n.getValue()));
+		Utils.expect(postOrder.toString(), "CBDCBroot");
+
+		final StringBuilder breadthFirst = new StringBuilder();
+		tree.visitBreadthFirst(n -> breadthFirst.append(n.getValue()));
+		Utils.expect(breadthFirst.toString(), "rootBBCDC");
+
+		// streams
+		Utils.expect(tree.stream().count(), 6L);
+		Utils.expect(tree.stream().filter(n -> "C".equals(n.getValue())).count(), 2L);
+
+		final Tree<Integer> wide = Tree.withRoot(0);
+		for (int i = 1; i <= 100; i++) {
+			final Node<Integer> child = wide.root().addChild(i);
+			for (int j = 0; j < 100; j++) {
+				child.addChild(i * 1000 + j);
+			}
+		}
+		Utils.expect(wide.parallelStream().count(), 10_101L);
+		Utils.expect(wide.parallelStream().mapToLong(Node::getValue).sum(), wide.stream().mapToLong(Node::getValue).sum());
+		Utils.expect(wide.parallelStream().filter(n -> n.getValue() > 1000 && n.getValue() % 1000 == 99).count(), 100L);
+
+		// cached aggregates and re-parenting
+		Utils.expect(root.getSubtreeSize(), 6);
+		Utils.expect(root.getHeight(), 2);
+		Utils.expect(c2.getDepth(), 2);
+		Utils.expect(b2.getChild(1), c2);
+
+		c.moveTo(c2);
+		Utils.expect(b1.getChildCount(), 0);
+		Utils.expect(c.getParent(), c2);
+		Utils.expect(c.getDepth(), 3);
+		Utils.expect(root.getHeight(), 3);
+		Utils.expect(b2.getSubtreeSize(), 4);
+		Utils.expect(tree.distance(c, b1), 4);
+		Utils.expect(tree.getPath(b1, c), List.of(b1, root, b2, c2, c));
+
+		// detaching clears the tree of the whole subtree and unlinks the siblings
+		root.removeChild(b2);
+		Utils.expect(b2.getTree() == null, true);
+		Utils.expect(c.getTree() == null, true);
+		Utils.expect(c.getRoot(), b2);
+		Utils.expect(c.getDepth(), 2);
+		Utils.expect(root.getFirstChild(), b1);
+		Utils.expect(b1.getNextSibling() == null, true);
+		Utils.expect(root.getSubtreeSize(), 2);
+		Utils.expect(tree.distance(root, c), -1);
+
+		b1.addChild(b2);
+		Utils.expect(c.getTree(), tree);
+		Utils.expect(c.getDepth(), 4);
+		Utils.expect(root.getHeight(), 4);
+		final StringBuilder moved = new StringBuilder();
+		tree.visitPostOrder(n -> moved.append(n.getValue()));
+		Utils.expect(moved.toString(), "DCCBBroot");
+
+		try {
+			root.removeChild(c);
+			throw new IllegalStateException("Removed a grandchild");
+		} catch (IllegalArgumentException _) {
+			// expected
+		}
+
+		// a deep chain is handled without recursion
+		final Tree<Integer> chain = Tree.withRoot(0);
+		Node<Integer> last = chain.root();
+		for (int i = 1; i < 100_000; i++) {
+			last = last.addChild(i);
+		}
+		Utils.expect(last.getDepth(), 99_999);
+		Utils.expect(chain.root().getHeight(), 99_999);
+		Utils.expect(chain.root().getSubtreeSize(), 100_000);
+		chain.root().getFirstChild().getFirstChild().moveTo(chain.root());
+		Utils.expect(last.getDepth(), 99_998);
+		Utils.expect(chain.root().getSubtreeSize(), 100_000);
+		Utils.expect(chain.root().getFirstChild().getSubtreeSize(), 1);
+
+		// an edit only makes the moved subtree stale, so the deep end keeps its cached depth
+		for (int i = 0; i < 20_000; i++) {
+			chain.root().addChild(-i);
+			Utils.expect(last.getDepth(), 99_998);
+		}
+		try {
+			last.addChild(chain.root().getChild(1));
+			throw new IllegalStateException("Moved a node under its own descendant");
+		} catch (IllegalArgumentException _) {
+			// expected
+		}
+		Utils.expect(last.getDepth(), 99_998);
+		Utils.expect(chain.root().getParent() == null, true);
+
+		// concurrent builder, links added from many threads in any order
+		final ConcurrentBuilder<Integer> builder = new ConcurrentBuilder<>();
+		IntStream.range(1, 200_000).parallel().forEach(i -> builder.link((i - 1) / 3, i));
+		builder.link(0, 1);
+		final Tree<Integer> built = builder.freeze(0);
+		Utils.expect(built.root().getSubtreeSize(), 200_000);
+		Utils.expect(built.root().getChildCount(), 3);
+		Utils.expect(built.root().getChildren().stream().map(Node::getValue).sorted().toList(), List.of(1, 2, 3));
+		Utils.expect(built.findNodes(199_999).getFirst().getDepth(), 11);
+		Utils.expect(built.findNodes(199_999).getFirst().getTree(), built);
+		Utils.expect(built.stream().mapToLong(Node::getValue).sum(), 199_999L * 200_000L / 2L);
+		Utils.expect(built.parallelStream().mapToLong(Node::getDepth).sum(), built.stream().mapToLong(Node::getDepth).sum());
+		Utils.expect(built.parallelStream().allMatch(n -> n.getSubtreeSize() == 1 + n.getChildren().stream().mapToInt(Node::getSubtreeSize).sum()), true);
+		chain.root().addChild(0); // Edits elsewhere leave a frozen tree alone
+		Utils.expect(built.findNodes(199_999).getFirst().getDepth(), 11);
+		try {
+			built.root().addChild(-1);
+			throw new IllegalStateException("Changed a frozen tree");
+		} catch (UnsupportedOperationException _) {
+			// expected
+		}
+
+		final ConcurrentBuilder<String> ordered = new ConcurrentBuilder<>();
+		ordered.link("root", "A");
+		ordered.link("root", "B");
+		ordered.link("A", "C");
+		ordered.link("root", "D");
+		final StringBuilder orderedPreOrder = new StringBuilder();
+		ordered.freeze("root").visitPreOrder(n -> orderedPreOrder.append(n.getValue()));
+		Utils.expect(orderedPreOrder.toString(), "rootACBD");
+
+		final ConcurrentBuilder<String> twoParents = new ConcurrentBuilder<>();
+		twoParents.link("A", "C");
+		try {
+			twoParents.link("B", "C");
+			throw new IllegalStateException("Linked a second parent");
+		} catch (IllegalArgumentException _) {
+			// expected
+		}
+
+		final ConcurrentBuilder<String> disconnected = new ConcurrentBuilder<>();
+		disconnected.link("root", "A");
+		disconnected.link("X", "Y");
+		try {
+			disconnected.freeze("root");
+			throw new IllegalStateException("Froze a forest");
+		} catch (IllegalStateException e) {
+			Utils.expect(e.getMessage(), "2 of 4 nodes are not under root");
+		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,281 @@
+package fi.kissakala;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Compact binary snapshot of a {@link Tree}, reloaded by memory-mapping instead of re-parsing and rebuilding nodes.
+ * <p>
+ * Format (big-endian): magic {@code TREE}, version, node count, value count, the end offset of every value's UTF-8
+ * bytes (starting with 0), the bytes of all values, then the parent, depth and value id of every node as int arrays.
+ * Nodes are numbered in pre-order, so the root is 0 and every parent has a smaller index than its children. Nodes are
+ * referred to by index in the query API.
+ * <p>
+ * Loading only reads the header, so it takes the same time for any size. Values are decoded from the mapping when
+ * they are looked up.
+ */
+public final class TreeSnapshot implements AutoCloseable {
+	private static final int MAGIC = 0x54524545; // "TREE"
+	private static final int VERSION = 2;
+	private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+	private final Arena arena;
+	private final MemorySegment data;
+	private final int size;
+	private final int valueCount;
+	private final long valueTableOffset;
+	private final long valueBytesOffset;
+	private final long parentOffset;
+	private final long depthOffset;
+	private final long valueOffset;
+
+	private TreeSnapshot(final Arena arena, final MemorySegment data) {
+		this.arena = arena;
+		this.data = data;
+
+		if (data.get(INT, 0L) != MAGIC) {
+			throw new IllegalArgumentException("Not a tree snapshot");
+		}
+		if (data.get(INT, 4L) != VERSION) {
+			throw new IllegalArgumentException("Unsupported snapshot version " + data.get(INT, 4L));
+		}
+		this.size = data.get(INT, 8L);
+
+		this.valueCount = data.get(INT, 12L);
+		this.valueTableOffset = 16L;
+		this.valueBytesOffset = valueTableOffset + (valueCount + 1L) * Integer.BYTES;
+		this.parentOffset = valueBytesOffset + valueEnd(valueCount - 1);
+		this.depthOffset = parentOffset + (long) size * Integer.BYTES;
+		this.valueOffset = depthOffset + (long) size * Integer.BYTES;
+	}
+
+	/**
+	 * Write {@param tree} to {@param file}, storing each value as the string produced by {@param encoder}
+	 */
+	public static <T> void write(final Tree<T> tree, final Function<? super T, String> encoder, final Path file) throws IOException {
+		final Map<Tree.Node<T>, Integer> indices = new IdentityHashMap<>();
+		final List<Tree.Node<T>> nodes = new ArrayList<>();
+		tree.visitPreOrder(node -> {
+			indices.put(node, nodes.size());
+			nodes.add(node);
+		});
+
+		final Utils.SymbolTable values = new Utils.SymbolTable();
+		final int[] parents = new int[nodes.size()];
+		final int[] depths = new int[nodes.size()];
+		final int[] valueIds = new int[nodes.size()];
+		for (int i = 0; i < nodes.size(); i++) {
+			final Tree.Node<T> node = nodes.get(i);
+			parents[i] = node.getParent() == null || i == 0 ? -1 : indices.get(node.getParent());
+			depths[i] = parents[i] == -1 ? 0 : depths[parents[i]] + 1;
+			valueIds[i] = values.intern(encoder.apply(node.getValue()));
+		}
+
+		try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(nodes.size());
+			out.writeInt(values.size());
+			final byte[][] encoded = new byte[values.size()][];
+			int end = 0;
+			out.writeInt(end);
+			for (int i = 0; i < encoded.length; i++) {
+				encoded[i] = values.name(i).getBytes(StandardCharsets.UTF_8);
+				end += encoded[i].length;
+				out.writeInt(end);
+			}
+			for (final byte[] bytes : encoded) {
+				out.write(bytes);
+			}
+			for (final int[] array : List.of(parents, depths, valueIds)) {
+				for (final int value : array) {
+					out.writeInt(value);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Memory-map a snapshot written by {@link #write}. The mapping is released by {@link #close()}.
+	 */
+	public static TreeSnapshot load(final Path file) throws IOException {
+		final Arena arena = Arena.ofShared();
+		try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return new TreeSnapshot(arena, channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size(), arena));
+		} catch (IOException | RuntimeException e) {
+			arena.close();
+			throw e;
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int root() {
+		return 0;
+	}
+
+	public String value(final int node) {
+		final int valueId = data.get(INT, valueOffset + (long) node * Integer.BYTES);
+		final long start = valueBytesOffset + valueEnd(valueId - 1);
+		final byte[] bytes = data.asSlice(start, valueBytesOffset + valueEnd(valueId) - start).toArray(ValueLayout.JAVA_BYTE);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return End of the bytes of value {@param valueId} relative to the first value, 0 for -1
+	 */
+	private long valueEnd(final int valueId) {
+		return data.get(INT, valueTableOffset + (valueId + 1L) * Integer.BYTES);
+	}
+
+	/**
+	 * @return Id of {@param value}, found by comparing its bytes in place, or -1
+	 */
+	private int valueId(final String value) {
+		final MemorySegment bytes = MemorySegment.ofArray(value.getBytes(StandardCharsets.UTF_8));
+		for (int valueId = 0; valueId < valueCount; valueId++) {
+			final long start = valueBytesOffset + valueEnd(valueId - 1);
+			final long end = valueBytesOffset + valueEnd(valueId);
+			if (end - start == bytes.byteSize() && MemorySegment.mismatch(data, start, end, bytes, 0L, bytes.byteSize()) == -1L) {
+				return valueId;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return Index of the parent node or -1 for the root
+	 */
+	public int parent(final int node) {
+		return data.get(INT, parentOffset + (long) node * Integer.BYTES);
+	}
+
+	public int depth(final int node) {
+		return data.get(INT, depthOffset + (long) node * Integer.BYTES);
+	}
+
+	/**
+	 * @return Indices of all nodes with value {@param value}, in pre-order
+	 */
+	public int[] findNodes(final String value) {
+		final int valueId = valueId(value);
+		if (valueId == -1) {
+			return new int[0];
+		}
+
+		int[] result = new int[8];
+		int count = 0;
+		for (int node = 0; node < size; node++) {
+			if (data.get(INT, valueOffset + (long) node * Integer.BYTES) == valueId) {
+				if (count == result.length) {
+					result = Arrays.copyOf(result, count * 2);
+				}
+				result[count++] = node;
+			}
+		}
+		return Arrays.copyOf(result, count);
+	}
+
+	/**
+	 * @return The distance in number of edges between the two nodes
+	 */
+	public int distance(final int a, final int b) {
+		final int lca = lowestCommonAncestor(a, b);
+		return depth(a) + depth(b) - 2 * depth(lca);
+	}
+
+	/**
+	 * @return Indices of the nodes on the path from {@param start} to {@param end}, including both
+	 */
+	public int[] getPath(final int start, final int end) {
+		final int lca = lowestCommonAncestor(start, end);
+		final int up = depth(start) - depth(lca);
+		final int[] path = new int[up + depth(end) - depth(lca) + 1];
+
+		int i = 0;
+		for (int node = start; node != lca; node = parent(node)) {
+			path[i++] = node;
+		}
+		path[i] = lca;
+
+		i = path.length - 1;
+		for (int node = end; node != lca; node = parent(node)) {
+			path[i--] = node;
+		}
+		return path;
+	}
+
+	private int lowestCommonAncestor(int a, int b) {
+		if (a < 0 || b < 0 || a >= size || b >= size) {
+			throw new IndexOutOfBoundsException("No such node");
+		}
+		while (depth(a) > depth(b)) a = parent(a);
+		while (depth(b) > depth(a)) b = parent(b);
+		while (a != b) {
+			a = parent(a);
+			b = parent(b);
+		}
+		return a;
+	}
+
+	@Override
+	public void close() {
+		arena.close();
+	}
+
+	public static void test() {
+		final Tree<String> tree = Tree.withRoot("root");
+		final Tree.Node<String> b1 = tree.root().addChild("B");
+		final Tree.Node<String> b2 = tree.root().addChild("B");
+		final Tree.Node<String> c = b1.addChild("C");
+		final Tree.Node<String> d = b2.addChild("D");
+		final Tree.Node<String> c2 = b2.addChild("C");
+
+		try {
+			final Path file = Files.createTempFile("tree", ".snapshot");
+			try {
+				write(tree, Function.identity(), file);
+				try (final TreeSnapshot snapshot = load(file)) {
+					Utils.expect(snapshot.size(), 6);
+					Utils.expect(snapshot.value(snapshot.root()), "root");
+					Utils.expect(snapshot.findNodes("B").length, 2);
+					Utils.expect(snapshot.findNodes("X").length, 0);
+					Utils.expect(snapshot.findNodes("").length, 0);
+
+					// Pre-order: root, B, C, B, D, C
+					final int[] cs = snapshot.findNodes("C");
+					Utils.expect(Arrays.toString(cs), "[2, 5]");
+					Utils.expect(snapshot.distance(cs[0], cs[1]), tree.distance(c, c2));
+					Utils.expect(snapshot.distance(2, 4), tree.distance(c, d));
+					Utils.expect(snapshot.distance(0, 0), 0);
+					Utils.expect(snapshot.distance(0, 4), tree.distance(tree.root(), d));
+
+					Utils.expect(Arrays.stream(snapshot.getPath(cs[0], cs[1])).mapToObj(snapshot::value).toList(),
+						tree.getPath(c, c2).stream().map(Tree.Node::getValue).toList());
+					Utils.expect(Arrays.toString(snapshot.getPath(3, 3)), "[3]");
+					Utils.expect(snapshot.parent(snapshot.findNodes("D")[0]), 3);
+					Utils.expect(b2 == tree.getPath(c, c2).get(3), true);
+				}
+			} finally {
+				Files.deleteIfExists(file);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -2,6 +2,7 @@ package fi.kissakala;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Array;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -11,7 +12,10 @@ import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -26,29 +30,109 @@ public class Utils {
 
 	public static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
 
-	public static String readInput(final String filename) throws IOException, URISyntaxException {
-		final URL url = Utils.class.getClassLoader().getResource(filename);
-		if (url == null) {
-			throw new FileNotFoundException(filename);
-		}
+	/**
+	 * Name and iteration counter of the innermost task in run(), bound for the thread running it
+	 */
+	private record TaskContext(String task, LongAdder iterations) {}
+	private static final ScopedValue<TaskContext> CURRENT_TASK = ScopedValue.newInstance();
 
-		return Files.readString(Path.of(url.toURI()), StandardCharsets.UTF_8);
+	private static final WorkCounter DP_CELLS = WorkCounter.of("DP cells");
+
+	public static String readInput(final String filename) throws IOException, URISyntaxException {
+		final Events.ParseEvent event = beginParse(filename);
+		final String input = readResource(filename);
+		commitParse(event, input.length(), 1L);
+		return input;
 	}
 
 	public static int readInputAsInt(final String filename) throws IOException, URISyntaxException {
-		return Integer.parseInt(readInput(filename));
+		final Events.ParseEvent event = beginParse(filename);
+		final String input = readResource(filename);
+		final int result = Integer.parseInt(input);
+		commitParse(event, input.length(), 1L);
+		return result;
 	}
 
 	public static char[] readInputAsCharArray(final String filename) throws IOException, URISyntaxException {
-		return readInput(filename).toCharArray();
+		final Events.ParseEvent event = beginParse(filename);
+		final char[] result = readResource(filename).toCharArray();
+		commitParse(event, result.length, 1L);
+		return result;
 	}
 
 	public static String[] readInputAsRows(final String filename) throws IOException, URISyntaxException {
-		return LINE_BREAK_PATTERN.split(readInput(filename));
+		final Events.ParseEvent event = beginParse(filename);
+		final String input = readResource(filename);
+		final String[] result = LINE_BREAK_PATTERN.split(input);
+		commitParse(event, input.length(), result.length);
+		return result;
 	}
 
 	public static <T> List<T> readInputAsRows(final String filename, final Function<String, T> mapper) throws IOException, URISyntaxException {
-		return readInputStringAsRows(readInput(filename), mapper);
+		final Events.ParseEvent event = beginParse(filename);
+		final String input = readResource(filename);
+		final List<T> result = readInputStringAsRows(input, mapper);
+		commitParse(event, input.length(), result.size());
+		return result;
+	}
+
+	public static byte[] readInputAsBytes(final String filename) throws IOException, URISyntaxException {
+		return Files.readAllBytes(resolveResource(filename));
+	}
+
+	private static String readResource(final String filename) throws IOException, URISyntaxException {
+		return Files.readString(resolveResource(filename), StandardCharsets.UTF_8);
+	}
+
+	private static Path resolveResource(final String filename) throws FileNotFoundException, URISyntaxException {
+		final URL url = Utils.class.getClassLoader().getResource(filename);
+		if (url == null) {
+			throw new FileNotFoundException(filename);
+		}
+
+		return Path.of(url.toURI());
+	}
+
+	private static Events.ParseEvent beginParse(final String filename) {
+		return beginParse(filename, currentTask());
+	}
+	/**
+	 * @param task Task the input is read for, which may not be the task running on this thread
+	 */
+	static Events.ParseEvent beginParse(final String filename, final String task) {
+		final Events.ParseEvent event = new Events.ParseEvent();
+		if (event.isEnabled()) {
+			event.task = task;
+			event.resource = filename;
+			event.begin();
+		}
+		return event;
+	}
+	static void commitParse(final Events.ParseEvent event, final long inputSize, final long rows) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.inputSize = inputSize;
+			event.rows = rows;
+			event.commit();
+		}
+	}
+
+	/**
+	 * @return Name of the task this thread is running in {@link #run}, or null
+	 */
+	static String currentTask() {
+		return CURRENT_TASK.isBound() ? CURRENT_TASK.get().task() : null;
+	}
+
+	/**
+	 * Add {@param count} to the iteration count of the task this thread is running, which goes to its solve event.
+	 * Does nothing outside {@link #run}. Threads the task hands work to, e.g. a fork/join pool, are not part of the task:
+	 * count there separately and record the total from the task's thread.
+	 */
+	public static void recordIterations(final long count) {
+		if (CURRENT_TASK.isBound()) {
+			CURRENT_TASK.get().iterations().add(count);
+		}
 	}
 	public static <T> List<T> readInputStringAsRows(final String input, final Function<String, T> mapper) {
 		return Arrays.stream(LINE_BREAK_PATTERN.split(input)).map(mapper).collect(Collectors.toCollection(ArrayList::new));
@@ -76,6 +160,30 @@ public class Utils {
 		return new StringBuffer(string).reverse().toString();
 	}
 
+	/**
+	 * Escape backslashes, tabs and line breaks so {@param s} fits in one field of a tab separated line
+	 */
+	public static String escapeField(final String s) {
+		return s.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+	}
+	public static String unescapeField(final String s) {
+		final StringBuilder builder = new StringBuilder(s.length());
+		for (int i = 0; i < s.length(); i++) {
+			final char c = s.charAt(i);
+			if (c != '\\' || i + 1 == s.length()) {
+				builder.append(c);
+				continue;
+			}
+			builder.append(switch (s.charAt(++i)) {
+				case 't' -> '\t';
+				case 'n' -> '\n';
+				case 'r' -> '\r';
+				default -> s.charAt(i);
+			});
+		}
+		return builder.toString();
+	}
+
 	@SuppressWarnings("unchecked")
 	public static <T> T[][] pad2DArray(final T[][] array, final int padding, final T paddingValue) {
 		final T[][] result = (T[][]) Array.newInstance(
@@ -220,6 +328,7 @@ public class Utils {
 	 */
 	public static int[] computeUnboundedMinCoinDp(final int target, final Integer[] coins) {
 		Arrays.sort(coins);
+		DP_CELLS.add(target);
 
 		final int[] dp = new int[target + 1];
 		Arrays.fill(dp, Integer.MAX_VALUE);
@@ -238,14 +347,62 @@ public class Utils {
 	}
 
 	public static void run(final String task, final Callable<Object> callable) throws Exception {
-		final long startTime = System.currentTimeMillis();
-		final Object result = callable.call();
-		IO.println("%s: %s (Run time %d ms)".formatted(task, result, System.currentTimeMillis() - startTime));
+		final Events.SolveEvent event = new Events.SolveEvent();
+		// Always counted, a recording may start while the task runs
+		final LongAdder iterations = new LongAdder();
+
+		final long[] counters = WorkCounter.snapshot();
+		final long startTime = System.nanoTime();
+		event.begin();
+		final Object result = ScopedValue.where(CURRENT_TASK, new TaskContext(task, iterations)).call(callable::call);
+		event.end();
+		final long elapsed = System.nanoTime() - startTime;
+		IO.println("%s: %s (Run time %d ms)".formatted(task, result, TimeUnit.NANOSECONDS.toMillis(elapsed)));
+		WorkCounter.report(counters, elapsed).forEach(IO::println);
+
+		if (event.shouldCommit()) {
+			event.task = task;
+			event.iterations = iterations.sum();
+			event.result = String.valueOf(result);
+			event.commit();
+		}
+	}
+	/**
+	 * Like {@link #run(String, Callable)}, but answers from the {@link AnswerCache} when the solver and its inputs are unchanged
+	 */
+	public static void run(final String task, final AnswerCache.Key key, final Callable<Object> callable) throws Exception {
+		final AnswerCache cache = AnswerCache.getDefault();
+		final String cached = cache.get(key);
+		if (cached != null && cache.mode() == AnswerCache.Mode.USE) {
+			IO.println("%s: %s (Cached)".formatted(task, cached));
+			return;
+		}
+
+		run(task, () -> {
+			final Object result = callable.call();
+			cache.put(key, result);
+			return result;
+		});
 	}
 	public static void run(final String task, final Runnable runnable) {
-		final long startTime = System.currentTimeMillis();
-		runnable.run();
-		IO.println("%s completed in %d ms".formatted(task, System.currentTimeMillis() - startTime));
+		final Events.SolveEvent event = new Events.SolveEvent();
+		// Always counted, a recording may start while the task runs
+		final LongAdder iterations = new LongAdder();
+
+		final long[] counters = WorkCounter.snapshot();
+		final long startTime = System.nanoTime();
+		event.begin();
+		ScopedValue.where(CURRENT_TASK, new TaskContext(task, iterations)).run(runnable);
+		event.end();
+		final long elapsed = System.nanoTime() - startTime;
+		IO.println("%s completed in %d ms".formatted(task, TimeUnit.NANOSECONDS.toMillis(elapsed)));
+		WorkCounter.report(counters, elapsed).forEach(IO::println);
+
+		if (event.shouldCommit()) {
+			event.task = task;
+			event.iterations = iterations.sum();
+			event.commit();
+		}
 	}
 
 	public static void expect(final Object o, final Object toBe) {
@@ -254,6 +411,9 @@ public class Utils {
 		}
 	}
 
+	/**
+	 * In-memory tests, fast enough to run before every solve. See {@link #selfTest} for the rest.
+	 */
 	public static void testAll() {
 		List.of(
 			new Triplet<>(1, 0, new BouncerResult(0, DIRECTION.DOWN)),
@@ -302,7 +462,519 @@ public class Utils {
 
 		expect(new HashSet<>(generatePermutations('A', 5, 'B', 3, 'C', 3)).size(), 9240);
 
+		expect(unescapeField(escapeField("A\tB\\n\r\n")), "A\tB\\n\r\n");
+		expect(escapeField("A\tB\n").contains("\t") || escapeField("A\tB\n").contains("\n"), false);
+
+		final SymbolTable symbols = new SymbolTable();
+		expect(symbols.intern("RR"), 0);
+		expect(symbols.intern("AB"), 1);
+		expect(symbols.intern("RR"), 0);
+		expect(symbols.idOf("AB"), 1);
+		expect(symbols.idOf("XY"), -1);
+		expect(symbols.name(1), "AB");
+		expect(symbols.size(), 2);
+		expect(symbols.intern("xRRx", 1, 3), 0);
+		for (int i = 0; i < 1000; i++) {
+			expect(symbols.intern("S" + i), i + 2);
+		}
+		expect(symbols.idOf("S999"), 1001);
+
+		final Cursor cursor = new Cursor("A:B,C,A\r\n\nZ:+,-,=\n-42");
+		expect(cursor.readIdent(symbols), symbols.intern("A"));
+		cursor.expect(':');
+		expect(Arrays.toString(cursor.readIdentList(',', symbols)), Arrays.toString(new int[]{symbols.idOf("B"), symbols.idOf("C"), symbols.idOf("A")}));
+		expect(cursor.atEndOfLine(), true);
+		expect(cursor.skipLineBreaks(), true);
+		expect(cursor.readIdent(), "Z");
+		expect(new String(cursor.expect(':').readCharList(',')), "+-=");
+		cursor.expectEndOfLine().skipLineBreaks();
+		expect(cursor.readInt(), -42);
+		expect(cursor.hasMore(), false);
+
+		// Game of Life: a still life converges at once, a blinker keeps changing, and quiet bands are skipped
+		final StencilGrid.Rule life = (cells, i, stride) -> {
+			final int neighbours = cells[i - stride - 1] + cells[i - stride] + cells[i - stride + 1] + cells[i - 1] + cells[i + 1]
+				+ cells[i + stride - 1] + cells[i + stride] + cells[i + stride + 1];
+			return neighbours == 3 || neighbours == 2 && cells[i] == 1 ? 1 : 0;
+		};
+		final StencilGrid block = StencilGrid.of("""
+			##.
+			##.
+			...
+			""", c -> c == '#' ? 1 : 0, 0);
+		expect(block.run(life, 10), 0);
+		expect(block.sum(), 4L);
+		final StencilGrid blinker = new StencilGrid(5, 100, 0);
+		blinker.set(1, 60, 1);
+		blinker.set(2, 60, 1);
+		blinker.set(3, 60, 1);
+		expect(blinker.step(life), 4);
+		expect(blinker.get(2, 59) + blinker.get(2, 61) + blinker.get(1, 60), 2);
+		expect(blinker.run(life, 7), 7);
+		expect(blinker.get(1, 60) + blinker.get(2, 60) + blinker.get(3, 60), 3);
+		expect(blinker.sum(), 3L);
+
 		Tree.test();
+		HeavyLightTree.test();
+		NumberParser.test();
+		WorkCounter.test();
+		SegmentGrid.test();
+		TreeSnapshot.test();
+		try {
+			RaceSimulator.test();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Tests that touch the file system, open sockets or fork JVMs, run with {@code --self-test}
+	 */
+	public static void selfTest() {
+		try {
+			AnswerCache.test();
+			SolverDaemon.test();
+			BatchRunner.test();
+			InputPrefetcher.test();
+			ShardRunner.test();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Maps identifiers to dense {@code int} ids in first-seen order, so parsed structures can be plain arrays indexed by id.
+	 * Names are only needed again when the final answer is built.
+	 */
+	public static final class SymbolTable {
+		private final List<String> names = new ArrayList<>();
+		private int[] hashes = new int[16];
+		private int[] slots = newSlots(16); // Open addressing, holds ids or -1
+
+		/**
+		 * @return The id of {@param name}, assigning the next free id if it has not been seen before
+		 */
+		public int intern(final String name) {
+			return intern(name, 0, name.length());
+		}
+
+		/**
+		 * Intern the characters {@code text[start, end)} without creating a substring unless the identifier is new
+		 * @return The id of the identifier, assigning the next free id if it has not been seen before
+		 */
+		public int intern(final CharSequence text, final int start, final int end) {
+			final int hash = hash(text, start, end);
+			final int mask = slots.length - 1;
+
+			int slot = mix(hash) & mask;
+			for (int id; (id = slots[slot]) != -1; slot = (slot + 1) & mask) {
+				if (hashes[id] == hash && regionEquals(names.get(id), text, start, end)) {
+					return id;
+				}
+			}
+
+			final int newId = names.size();
+			names.add(text.subSequence(start, end).toString());
+			if (newId == hashes.length) {
+				hashes = Arrays.copyOf(hashes, newId * 2);
+			}
+			hashes[newId] = hash;
+			slots[slot] = newId;
+
+			if (names.size() * 2 > slots.length) {
+				rehash();
+			}
+			return newId;
+		}
+
+		/**
+		 * @return The id of {@param name} or -1 if it has not been interned
+		 */
+		public int idOf(final String name) {
+			final int hash = hash(name, 0, name.length());
+			final int mask = slots.length - 1;
+
+			for (int slot = mix(hash) & mask, id; (id = slots[slot]) != -1; slot = (slot + 1) & mask) {
+				if (hashes[id] == hash && names.get(id).equals(name)) {
+					return id;
+				}
+			}
+			return -1;
+		}
+
+		public String name(final int id) {
+			return names.get(id);
+		}
+
+		public int size() {
+			return names.size();
+		}
+
+		private void rehash() {
+			slots = newSlots(slots.length * 2);
+			final int mask = slots.length - 1;
+
+			for (int id = 0; id < names.size(); id++) {
+				int slot = mix(hashes[id]) & mask;
+				while (slots[slot] != -1) {
+					slot = (slot + 1) & mask;
+				}
+				slots[slot] = id;
+			}
+		}
+
+		private static int[] newSlots(final int size) {
+			final int[] result = new int[size];
+			Arrays.fill(result, -1);
+			return result;
+		}
+
+		private static int hash(final CharSequence text, final int start, final int end) {
+			int hash = 0;
+			for (int i = start; i < end; i++) {
+				hash = 31 * hash + text.charAt(i);
+			}
+			return hash;
+		}
+
+		private static int mix(final int hash) {
+			return hash ^ (hash >>> 16);
+		}
+
+		private static boolean regionEquals(final String name, final CharSequence text, final int start, final int end) {
+			if (name.length() != end - start) {
+				return false;
+			}
+			for (int i = 0; i < name.length(); i++) {
+				if (name.charAt(i) != text.charAt(start + i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Hand-written single-pass tokenizer for the quest input formats. Reads identifiers, numbers and lists straight
+	 * into primitives and interned ids without a {@link Matcher}, a {@code String[]} per row or intermediate substrings.
+	 */
+	public static final class Cursor {
+		private final String input;
+		private int position;
+
+		public Cursor(final String input) {
+			this.input = input;
+		}
+
+		public boolean hasMore() {
+			return position < input.length();
+		}
+
+		public int position() {
+			return position;
+		}
+
+		/**
+		 * @return The current character or {@code '\0'} at the end of input
+		 */
+		public char peek() {
+			return hasMore() ? input.charAt(position) : '\0';
+		}
+
+		public boolean tryConsume(final char c) {
+			if (hasMore() && input.charAt(position) == c) {
+				position++;
+				return true;
+			}
+			return false;
+		}
+
+		public Cursor expect(final char c) {
+			if (!tryConsume(c)) {
+				throw error("'" + c + "'");
+			}
+			return this;
+		}
+
+		public Cursor expect(final String literal) {
+			if (!input.startsWith(literal, position)) {
+				throw error('"' + literal + '"');
+			}
+			position += literal.length();
+			return this;
+		}
+
+		/**
+		 * Identifiers are runs of letters and digits
+		 */
+		public String readIdent() {
+			final int start = position;
+			position = identEnd();
+			return input.substring(start, position);
+		}
+
+		/**
+		 * Read an identifier and intern it into {@param symbols}
+		 * @return The id of the identifier
+		 */
+		public int readIdent(final SymbolTable symbols) {
+			final int start = position;
+			final int end = identEnd();
+			position = end;
+			return symbols.intern(input, start, end);
+		}
+
+		public int readInt() {
+			final boolean negative = tryConsume('-');
+			final int start = position;
+
+			int result = 0;
+			while (hasMore() && Character.isDigit(input.charAt(position))) {
+				result = result * 10 + (input.charAt(position++) - '0');
+			}
+			if (position == start) {
+				throw error("digit");
+			}
+
+			return negative ? -result : result;
+		}
+
+		/**
+		 * Read a {@param separator} separated list of identifiers, e.g. {@code B,C,A}
+		 * @return The interned ids
+		 */
+		public int[] readIdentList(final char separator, final SymbolTable symbols) {
+			int[] result = new int[8];
+			int size = 0;
+
+			do {
+				if (size == result.length) {
+					result = Arrays.copyOf(result, size * 2);
+				}
+				result[size++] = readIdent(symbols);
+			} while (tryConsume(separator));
+
+			return Arrays.copyOf(result, size);
+		}
+
+		/**
+		 * Read a {@param separator} separated list of single characters, e.g. {@code +,-,=}
+		 */
+		public char[] readCharList(final char separator) {
+			char[] result = new char[16];
+			int size = 0;
+
+			do {
+				if (!hasMore() || isLineBreak(input.charAt(position))) {
+					throw error("character");
+				}
+				if (size == result.length) {
+					result = Arrays.copyOf(result, size * 2);
+				}
+				result[size++] = input.charAt(position++);
+			} while (tryConsume(separator));
+
+			return Arrays.copyOf(result, size);
+		}
+
+		/**
+		 * Read the rest of the current line, excluding the line break
+		 */
+		public char[] readLine() {
+			final int start = position;
+			while (hasMore() && !isLineBreak(input.charAt(position))) {
+				position++;
+			}
+
+			final char[] result = new char[position - start];
+			input.getChars(start, position, result, 0);
+			return result;
+		}
+
+		public boolean atEndOfLine() {
+			return !hasMore() || isLineBreak(input.charAt(position));
+		}
+
+		public Cursor expectEndOfLine() {
+			if (!atEndOfLine()) {
+				throw error("end of line");
+			}
+			return this;
+		}
+
+		/**
+		 * Skip any number of consecutive line breaks
+		 * @return True if at least one line break was skipped
+		 */
+		public boolean skipLineBreaks() {
+			final int start = position;
+			while (hasMore() && isLineBreak(input.charAt(position))) {
+				position++;
+			}
+			return position != start;
+		}
+
+		private int identEnd() {
+			int end = position;
+			while (end < input.length() && Character.isLetterOrDigit(input.charAt(end))) {
+				end++;
+			}
+			if (end == position) {
+				throw error("identifier");
+			}
+			return end;
+		}
+
+		private static boolean isLineBreak(final char c) {
+			return c == '\n' || c == '\r';
+		}
+
+		private IllegalArgumentException error(final String expected) {
+			return new IllegalArgumentException("Expected %s at position %d, got '%s'".formatted(expected, position, hasMore() ? input.charAt(position) : "end of input"));
+		}
+	}
+
+	/**
+	 * Synchronous cellular automaton over a primitive {@code int} grid with double buffering. Every generation applies
+	 * a {@link Rule} to all cells of the current buffer and writes the next buffer, in bands of rows on the common
+	 * ForkJoin pool.
+	 * <p>
+	 * Rules may only read the 3x3 neighbourhood of a cell. A band is then only recomputed if it or a neighbouring band
+	 * changed in the previous generation; both buffers of a quiet band hold the same values, so it can be skipped.
+	 * The grid has a one-cell border of a fixed outside value, so rules need no bounds checks.
+	 */
+	public static final class StencilGrid {
+		@FunctionalInterface
+		public interface Rule {
+			/**
+			 * @return Next value of {@code cells[index]}. Neighbours are at {@code index ± 1}, {@code index ± stride} and
+			 * {@code index ± stride ± 1}.
+			 */
+			int apply(int[] cells, int index, int stride);
+		}
+
+		private static final int BAND_ROWS = 16;
+
+		private final int width;
+		private final int height;
+		private final int stride;
+		private final boolean[] activeBands;
+		private int[] current;
+		private int[] next;
+
+		public StencilGrid(final int width, final int height, final int outside) {
+			this.width = width;
+			this.height = height;
+			this.stride = width + 2;
+			this.activeBands = new boolean[Math.max(1, Math.ceilDiv(height, BAND_ROWS))];
+			Arrays.fill(activeBands, true);
+
+			this.current = new int[stride * (height + 2)];
+			if (outside != 0) {
+				Arrays.fill(current, outside);
+				for (int y = 1; y <= height; y++) {
+					Arrays.fill(current, y * stride + 1, y * stride + 1 + width, 0);
+				}
+			}
+			this.next = current.clone();
+		}
+
+		/**
+		 * Grid of the characters in {@param input}, each mapped with {@param cell}. Short rows are padded with {@param outside}.
+		 */
+		public static StencilGrid of(final String input, final IntUnaryOperator cell, final int outside) {
+			final String[] rows = LINE_BREAK_PATTERN.split(input);
+			final StencilGrid grid = new StencilGrid(Arrays.stream(rows).mapToInt(String::length).max().orElse(0), rows.length, outside);
+			for (int y = 0; y < rows.length; y++) {
+				for (int x = 0; x < grid.width; x++) {
+					grid.current[(y + 1) * grid.stride + x + 1] = x < rows[y].length() ? cell.applyAsInt(rows[y].charAt(x)) : outside;
+				}
+			}
+			System.arraycopy(grid.current, 0, grid.next, 0, grid.current.length);
+			return grid;
+		}
+
+		public int width() {
+			return width;
+		}
+
+		public int height() {
+			return height;
+		}
+
+		public int get(final int x, final int y) {
+			return current[(y + 1) * stride + x + 1];
+		}
+
+		public void set(final int x, final int y, final int value) {
+			current[(y + 1) * stride + x + 1] = value;
+			final int band = y / BAND_ROWS;
+			for (int b = Math.max(0, band - 1); b <= Math.min(activeBands.length - 1, band + 1); b++) {
+				activeBands[b] = true;
+			}
+		}
+
+		public long sum() {
+			long sum = 0L;
+			for (int y = 1; y <= height; y++) {
+				for (int index = y * stride + 1, end = index + width; index < end; index++) {
+					sum += current[index];
+				}
+			}
+			return sum;
+		}
+
+		/**
+		 * Compute one generation
+		 * @return Number of cells that changed
+		 */
+		public int step(final Rule rule) {
+			final int[] from = current;
+			final int[] to = next;
+			final int[] changed = new int[activeBands.length];
+
+			IntStream.range(0, activeBands.length).parallel().filter(band -> activeBands[band]).forEach(band -> {
+				int count = 0;
+				for (int y = band * BAND_ROWS + 1; y <= Math.min(height, (band + 1) * BAND_ROWS); y++) {
+					for (int index = y * stride + 1, end = index + width; index < end; index++) {
+						final int value = rule.apply(from, index, stride);
+						to[index] = value;
+						if (value != from[index]) {
+							count++;
+						}
+					}
+				}
+				changed[band] = count;
+			});
+
+			int total = 0;
+			for (int band = 0; band < activeBands.length; band++) {
+				total += changed[band];
+				activeBands[band] = changed[band] > 0
+					|| band > 0 && changed[band - 1] > 0
+					|| band < activeBands.length - 1 && changed[band + 1] > 0;
+			}
+			current = to;
+			next = from;
+			return total;
+		}
+
+		/**
+		 * Step until a generation changes nothing, or {@param maxGenerations} have been computed
+		 * @return Number of generations that changed something
+		 */
+		public int run(final Rule rule, final int maxGenerations) {
+			int generations = 0;
+			while (generations < maxGenerations && step(rule) > 0) {
+				generations++;
+			}
+			return generations;
+		}
 	}
 
 	public record BouncerResult(int index, DIRECTION direction) {}
@@ -0,0 +1,149 @@
+package fi.kissakala;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named count of domain operations, e.g. DP cells filled or race steps simulated. {@link Utils#run} prints how much
+ * each counter grew during the task and the resulting operations per second.
+ * <p>
+ * Counting is off unless the system property {@code everybodycodes.counters} is {@code true}. When off, {@link #add}
+ * on a counter made with {@link #of} is a branch on a constant that the JIT removes. Counters are global, so tasks
+ * running at the same time count into each other's totals.
+ * <p>
+ * A counter made with {@link #ofIterations} is also the iteration count of the task that adds to it, see
+ * {@link Utils#recordIterations}, so one call feeds both the counter report and the task's solve event. That is always
+ * recorded, costing a scoped value lookup and an add per call even with counting off, so feed these counters totals,
+ * e.g. once after a loop, rather than incrementing them in the loop.
+ */
+public final class WorkCounter {
+	public static final boolean ENABLED = Boolean.getBoolean("everybodycodes.counters");
+
+	private static final List<WorkCounter> COUNTERS = new CopyOnWriteArrayList<>();
+
+	private final String name;
+	private final boolean iterations;
+	private final LongAdder count = new LongAdder();
+
+	private WorkCounter(final String name, final boolean iterations) {
+		this.name = name;
+		this.iterations = iterations;
+	}
+
+	/**
+	 * @param name Plural noun for what is counted, e.g. {@code DP cells}
+	 */
+	public static WorkCounter of(final String name) {
+		return register(new WorkCounter(name, false));
+	}
+
+	/**
+	 * Counter of what a task iterates over, e.g. rounds or plans evaluated, that also adds to the task's iterations.
+	 * Add totals, not one at a time, see above.
+	 */
+	public static WorkCounter ofIterations(final String name) {
+		return register(new WorkCounter(name, true));
+	}
+
+	private static WorkCounter register(final WorkCounter counter) {
+		COUNTERS.add(counter);
+		return counter;
+	}
+
+	public String name() {
+		return name;
+	}
+
+	public void add(final long n) {
+		if (iterations) {
+			Utils.recordIterations(n);
+		}
+		if (ENABLED) {
+			count.add(n);
+		}
+	}
+
+	public void increment() {
+		add(1L);
+	}
+
+	public long sum() {
+		return count.sum();
+	}
+
+	/**
+	 * @return Current value of every counter, to pass to {@link #report} after the work is done
+	 */
+	static long[] snapshot() {
+		if (!ENABLED) {
+			return null;
+		}
+		final long[] values = new long[COUNTERS.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = COUNTERS.get(i).sum();
+		}
+		return values;
+	}
+
+	/**
+	 * @return One line per counter that grew since {@param before}, e.g. {@code   DP cells: 1000000 (250.0 M/s)}
+	 */
+	static List<String> report(final long[] before, final long elapsedNanos) {
+		if (before == null) {
+			return List.of();
+		}
+		final List<String> lines = new ArrayList<>();
+		for (int i = 0; i < COUNTERS.size(); i++) {
+			final WorkCounter counter = COUNTERS.get(i);
+			final long delta = counter.sum() - (i < before.length ? before[i] : 0L);
+			if (delta != 0L) {
+				lines.add("  %s: %d (%s)".formatted(counter.name, delta, rate(delta, elapsedNanos)));
+			}
+		}
+		return lines;
+	}
+
+	static String rate(final long count, final long elapsedNanos) {
+		final double perSecond = count * 1e9 / Math.max(1L, elapsedNanos);
+		if (perSecond >= 1e9) {
+			return String.format(Locale.ROOT, "%.1f G/s", perSecond / 1e9);
+		}
+		if (perSecond >= 1e6) {
+			return String.format(Locale.ROOT, "%.1f M/s", perSecond / 1e6);
+		}
+		if (perSecond >= 1e3) {
+			return String.format(Locale.ROOT, "%.1f k/s", perSecond / 1e3);
+		}
+		return String.format(Locale.ROOT, "%.1f /s", perSecond);
+	}
+
+	/**
+	 * Registered once, however many times the tests run in a long-lived process
+	 */
+	private static final class TestCounter {
+		private static final WorkCounter INSTANCE = of("Test operations");
+	}
+
+	public static void test() {
+		final WorkCounter counter = TestCounter.INSTANCE;
+		final long start = counter.sum();
+		counter.add(5L);
+		counter.increment();
+		Utils.expect(counter.sum() - start, ENABLED ? 6L : 0L);
+		Utils.expect(counter.name(), "Test operations");
+		Utils.expect(COUNTERS.stream().filter(c -> c.name.equals("Test operations")).count(), 1L);
+
+		Utils.expect(rate(2_500_000L, 1_000_000_000L), "2.5 M/s");
+		Utils.expect(rate(3L, 2_000_000_000L), "1.5 /s");
+		Utils.expect(rate(42L, 0L), "42.0 G/s");
+		Utils.expect(report(null, 1L).isEmpty(), true);
+		if (ENABLED) {
+			final long[] before = snapshot();
+			counter.add(1_000L);
+			Utils.expect(report(before, 1_000_000L).contains("  Test operations: 1000 (1.0 M/s)"), true);
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package fi.kissakala.thekingdomofalgorithmia;
+
+import fi.kissakala.QuestSolver;
+import fi.kissakala.TheKingdomOfAlgorithmia;
+
+import java.util.*;
+
+import static fi.kissakala.Utils.*;
+
+/**
+ * <a href="https://everybody.codes/event/2024/quests/1">The Kingdom of Algorithmia, Quest 1</a>
+ */
+public final class Quest1 {
+	private Quest1() {}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 1, part = 1)
+	public static final class Part1 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return calculatePotionsForEnemies(input[0].toCharArray());
+		}
+	}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 1, part = 2)
+	public static final class Part2 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return calculatePotionsForGroups(input[0], 2);
+		}
+	}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 1, part = 3)
+	public static final class Part3 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return calculatePotionsForGroups(input[0], 3);
+		}
+	}
+
+	private static int calculatePotionsForEnemies(final char... input) {
+		int result = 0;
+		for (final char c : input) {
+			result += switch (c) {
+				case 'B' -> 1;
+				case 'C' -> 3;
+				case 'D' -> 5; // Parts 2 and 3 only
+				default -> 0;
+			};
+		}
+		return result;
+	}
+	private static int calculatePotionsForGroups(final String input, final int groupSize) {
+		final List<Character> currentGroup = new ArrayList<>();
+		int result = 0;
+
+		for (final char c : input.toCharArray()) {
+			currentGroup.add(c);
+			if (currentGroup.size() == groupSize) {
+				result += currentGroup.stream().mapToInt(Quest1::calculatePotionsForEnemies).sum();
+
+				final long enemyCount = currentGroup.stream().filter(thisC -> thisC.equals('A') || thisC.equals('B') || thisC.equals('C') || thisC.equals('D')).count();
+				if (enemyCount == 3L) {
+					result += 6;
+				}
+				else if (enemyCount == 2L) {
+					result += 2;
+				}
+
+				currentGroup.clear();
+			}
+		}
+
+		return result;
+	}
+
+	public static void test() {
+		expect(calculatePotionsForEnemies("ABBAC".toCharArray()), 5);
+		expect(calculatePotionsForGroups("AxBCDDCAxD", 2), 28);
+		expect(calculatePotionsForGroups("xBxAAABCDxCC", 3), 30);
+	}
+}
@@ -0,0 +1,340 @@
+package fi.kissakala.thekingdomofalgorithmia;
+
+import fi.kissakala.QuestSolver;
+import fi.kissakala.TheKingdomOfAlgorithmia;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static fi.kissakala.Utils.*;
+
+/**
+ * <a href="https://everybody.codes/event/2024/quests/10">The Kingdom of Algorithmia, Quest 10</a>
+ */
+public final class Quest10 {
+	private Quest10() {}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 10, part = 1)
+	public static final class Part1 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return quest10GetRunicWord(quest10ParseBlock(input[0]).getFirst());
+		}
+	}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 10, part = 2)
+	public static final class Part2 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return quest10Part2(input[0]);
+		}
+	}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 10, part = 3)
+	public static final class Part3 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return quest10Part3(input[0]);
+		}
+	}
+
+	/** Grids on the part 3 wall are 8x8 and share their two outermost rune rows and columns with their neighbours */
+	private static final int WALL_GRID_SIZE = 8;
+	private static final int WALL_GRID_STEP = 6;
+
+	private static List<char[][]> quest10ParseBlock(final String input) {
+		final List<char[][]> grids = new ArrayList<>();
+
+		final List<String[]> rows = new ArrayList<>();
+
+		for (final String row : LINE_BREAK_PATTERN.split(input)) { // row = **LNQW** **WBPD** ...
+			final String[] rowSplit = WHITESPACE_PATTERN.split(row);
+			rows.add(rowSplit);
+		}
+
+		final int totalGrids = rows.getFirst().length;
+		final int rowsSize = rows.size();
+		final int cols = rows.getFirst()[0].length();
+
+		for (int i = 0; i < totalGrids; i++) {
+			final char[][] grid = new char[rowsSize][cols];
+
+			for (int row = 0; row < rowsSize; row++) {
+				final char[] chars = rows.get(row)[i].toCharArray();
+				System.arraycopy(chars, 0, grid[row], 0, chars.length);
+			}
+
+			grids.add(grid);
+		}
+
+		return grids;
+	}
+	private static String quest10GetRunicWord(final char[][] grid) {
+		final StringBuilder result = new StringBuilder();
+
+		for (final char[] value : grid) { // Loop rows, y = row
+			x: for (int x = 0; x < value.length; x++) { // Loop columns, x = column
+				if (value[x] == '.') { // If current location needs to be filled
+					for (final char[] chars : grid) { // Loop current column, y2 = row
+						for (final char c : value) { // Loop current row, x2 = column
+							if (c != '.' && c == chars[x]) { // We found the letter
+								result.append(chars[x]);
+								continue x;
+							}
+						}
+					}
+				}
+			}
+		}
+
+		return result.toString();
+	}
+	private static int quest10CalculateRunicWordPower(final String runicWord) {
+		return IntStream.range(0, runicWord.length())
+			.map(i -> (i + 1) * (ALPHABET.indexOf(runicWord.charAt(i)) + 1))
+			.sum();
+	}
+	private static int quest10Part2(final String input) {
+		int result = 0;
+
+		StringBuilder block = new StringBuilder();
+
+		for (String line : SINGLE_LINE_BREAK_PATTERN.split(input)) {
+			if (line.isBlank()) {
+				if (!block.isEmpty()) {
+					result += quest10ParseBlock(block.toString()).stream()
+						.map(Quest10::quest10GetRunicWord)
+						.mapToInt(Quest10::quest10CalculateRunicWordPower)
+						.sum();
+					block = new StringBuilder();
+				}
+			} else {
+				block.append(line).append("\n");
+			}
+		}
+
+		// last block
+		if (!block.isEmpty()) {
+			result += quest10ParseBlock(block.toString()).stream()
+				.map(Quest10::quest10GetRunicWord)
+				.mapToInt(Quest10::quest10CalculateRunicWordPower)
+				.sum();
+		}
+
+		return result;
+	}
+
+	/**
+	 * Fills the whole wall with worklist constraint propagation and sums the power of every grid that can be completed.
+	 * <p>
+	 * The wall is kept as one flat {@code char[]} so that a '?' resolved in one grid is immediately visible to the grids
+	 * sharing that border. Only those neighbours are queued again; grids whose borders did not change are not re-examined.
+	 */
+	private static int quest10Part3(final String input) {
+		final String[] lines = LINE_BREAK_PATTERN.split(input.strip());
+		final int width = lines[0].length();
+		final int height = lines.length;
+
+		final char[] wall = new char[width * height];
+		for (int y = 0; y < height; y++) {
+			if (lines[y].length() != width) {
+				throw new IllegalArgumentException("Wall row " + y + " is not " + width + " runes wide");
+			}
+			lines[y].getChars(0, width, wall, y * width);
+		}
+
+		final int gridsX = (width - WALL_GRID_SIZE) / WALL_GRID_STEP + 1;
+		final int gridsY = (height - WALL_GRID_SIZE) / WALL_GRID_STEP + 1;
+
+		final ArrayDeque<Integer> worklist = new ArrayDeque<>();
+		final boolean[] queued = new boolean[gridsX * gridsY];
+		for (int grid = 0; grid < queued.length; grid++) {
+			worklist.add(grid);
+			queued[grid] = true;
+		}
+
+		final List<Integer> resolved = new ArrayList<>();
+		while (!worklist.isEmpty()) {
+			final int grid = worklist.poll();
+			queued[grid] = false;
+
+			resolved.clear();
+			quest10FillGrid(wall, width, (grid % gridsX) * WALL_GRID_STEP, (grid / gridsX) * WALL_GRID_STEP, resolved);
+
+			for (final int index : resolved) {
+				final int x = index % width;
+				final int y = index / width;
+				for (int gy = Math.max(0, Math.ceilDiv(y - WALL_GRID_SIZE + 1, WALL_GRID_STEP)); gy <= Math.min(gridsY - 1, y / WALL_GRID_STEP); gy++) {
+					for (int gx = Math.max(0, Math.ceilDiv(x - WALL_GRID_SIZE + 1, WALL_GRID_STEP)); gx <= Math.min(gridsX - 1, x / WALL_GRID_STEP); gx++) {
+						final int neighbour = gy * gridsX + gx;
+						if (neighbour != grid && !queued[neighbour]) {
+							worklist.add(neighbour);
+							queued[neighbour] = true;
+						}
+					}
+				}
+			}
+		}
+
+		int result = 0;
+		for (int grid = 0; grid < gridsX * gridsY; grid++) {
+			final String word = quest10WallWord(wall, width, (grid % gridsX) * WALL_GRID_STEP, (grid / gridsX) * WALL_GRID_STEP);
+			if (word != null) {
+				result += quest10CalculateRunicWordPower(word);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Fills as many inner cells of one wall grid as possible.
+	 * A cell takes the rune shared by its row and column. If there is none and one side has a '?', the cell takes the only
+	 * rune of the other side not yet used in its inner cells, and the '?' becomes that rune.
+	 *
+	 * @param resolved Receives the wall indexes of border runes that were resolved
+	 */
+	private static void quest10FillGrid(final char[] wall, final int width, final int originX, final int originY, final List<Integer> resolved) {
+		final int last = WALL_GRID_SIZE - 1;
+		final int[] border = { 0, 1, last - 1, last };
+
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+
+			for (int row = 2; row < last - 1; row++) {
+				final int rowStart = (originY + row) * width + originX;
+
+				cell: for (int col = 2; col < last - 1; col++) {
+					final int cell = rowStart + col;
+					if (wall[cell] != '.') {
+						continue;
+					}
+
+					final int colStart = originY * width + originX + col;
+					for (final int i : border) {
+						final char rune = wall[rowStart + i];
+						for (final int j : border) {
+							if (rune != '?' && rune == wall[colStart + j * width]) {
+								wall[cell] = rune;
+								changed = true;
+								continue cell;
+							}
+						}
+					}
+
+					final int rowUnknown = quest10UnknownRune(wall, border, rowStart, 1);
+					final int colUnknown = quest10UnknownRune(wall, border, colStart, width);
+					if (rowUnknown >= 0 && colUnknown < 0) {
+						final char rune = quest10MissingRune(wall, border, colStart, width);
+						if (rune != 0) {
+							wall[cell] = rune;
+							wall[rowUnknown] = rune;
+							resolved.add(rowUnknown);
+							changed = true;
+						}
+					} else if (colUnknown >= 0 && rowUnknown < 0) {
+						final char rune = quest10MissingRune(wall, border, rowStart, 1);
+						if (rune != 0) {
+							wall[cell] = rune;
+							wall[colUnknown] = rune;
+							resolved.add(colUnknown);
+							changed = true;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/** @return Wall index of a '?' among the border runes of a grid line, or -1 if there is none */
+	private static int quest10UnknownRune(final char[] wall, final int[] border, final int lineStart, final int stride) {
+		for (final int i : border) {
+			if (wall[lineStart + i * stride] == '?') {
+				return lineStart + i * stride;
+			}
+		}
+		return -1;
+	}
+
+	/** @return The only border rune of a grid line not yet placed in its inner cells, or 0 if there is no single one */
+	private static char quest10MissingRune(final char[] wall, final int[] border, final int lineStart, final int stride) {
+		char missing = 0;
+		border: for (final int i : border) {
+			final char rune = wall[lineStart + i * stride];
+			for (int j = 2; j < WALL_GRID_SIZE - 2; j++) {
+				if (wall[lineStart + j * stride] == rune) {
+					continue border;
+				}
+			}
+			if (missing != 0) {
+				return 0;
+			}
+			missing = rune;
+		}
+		return missing;
+	}
+
+	/** @return Runic word of a completed wall grid, or null if some of its inner cells could not be filled */
+	private static String quest10WallWord(final char[] wall, final int width, final int originX, final int originY) {
+		final StringBuilder word = new StringBuilder(16);
+		for (int row = 2; row < WALL_GRID_SIZE - 2; row++) {
+			for (int col = 2; col < WALL_GRID_SIZE - 2; col++) {
+				final char rune = wall[(originY + row) * width + originX + col];
+				if (rune == '.') {
+					return null;
+				}
+				word.append(rune);
+			}
+		}
+		return word.toString();
+	}
+
+	public static void test() {
+		expect(quest10GetRunicWord(quest10ParseBlock("""
+			**PCBS**
+			**RLNW**
+			BV....PT
+			CR....HZ
+			FL....JW
+			SG....MN
+			**FTZV**
+			**GMJH**
+			""").getFirst()), "PTBVRCZHFLJWGMNS");
+		expect(quest10CalculateRunicWordPower("PTBVRCZHFLJWGMNS"), 1851);
+		expect(quest10Part2("""
+			**PCBS** **PCBS**
+			**RLNW** **RLNW**
+			BV....PT BV....PT
+			CR....HZ CR....HZ
+			FL....JW FL....JW
+			SG....MN SG....MN
+			**FTZV** **FTZV**
+			**GMJH** **GMJH**
+			
+			**PCBS** **PCBS**
+			**RLNW** **RLNW**
+			BV....PT BV....PT
+			CR....HZ CR....HZ
+			FL....JW FL....JW
+			SG....MN SG....MN
+			**FTZV** **FTZV**
+			**GMJH** **GMJH**
+			"""), 7404);
+		expect(quest10Part3("""
+			**XFZB**DCST**
+			**LWQK**GQJH**
+			?G....WL....DQ
+			BS....H?....CN
+			P?....KJ....TV
+			NM....Z?....SG
+			**NSHM**VKWZ**
+			**PJGV**XFNL**
+			WQ....?L....YS
+			FX....DJ....HV
+			?Y....WM....?J
+			TJ....YK....LP
+			**XRTK**BMSP**
+			**DWZN**GCJV**
+			"""), 3889);
+	}
+}
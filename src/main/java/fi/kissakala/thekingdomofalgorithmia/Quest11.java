@@ -0,0 +1,121 @@
+package fi.kissakala.thekingdomofalgorithmia;
+
+import fi.kissakala.QuestSolver;
+import fi.kissakala.TheKingdomOfAlgorithmia;
+
+import java.util.*;
+
+import static fi.kissakala.Utils.*;
+
+/**
+ * <a href="https://everybody.codes/event/2024/quests/11">The Kingdom of Algorithmia, Quest 11</a>
+ */
+public final class Quest11 {
+	private Quest11() {}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 11, part = 1)
+	public static final class Part1 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return quest11(input[0], 4, "A");
+		}
+	}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 11, part = 2)
+	public static final class Part2 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return quest11(input[0], 10, "Z");
+		}
+	}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 11, part = 3)
+	public static final class Part3 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return quest11Part3(input[0]);
+		}
+	}
+
+	private static long quest11(final String input, final int days, final String start) {
+		final TermiteNotes notes = quest11ParseNotes(input);
+		return quest11Calc(notes.rules(), days, notes.symbols().idOf(start));
+	}
+	private static long quest11Part3(final String input) {
+		final int[][] rules = quest11ParseNotes(input).rules();
+
+		long lowest = Long.MAX_VALUE;
+		long largest = 0L;
+		for (int start = 0; start < rules.length; start++) {
+			final long result = quest11Calc(rules, 20, start);
+			if (result < lowest) {
+				lowest = result;
+			}
+			if (result > largest) {
+				largest = result;
+			}
+		}
+
+		return largest - lowest;
+	}
+	private static long quest11Calc(final int[][] rules, final int days, final int start) {
+		long[] counts = new long[rules.length];
+		long[] next = new long[rules.length];
+		counts[start] = 1L;
+
+		for (int day = 0; day < days; day++) {
+			Arrays.fill(next, 0L);
+			for (int category = 0; category < counts.length; category++) {
+				final long currentCount = counts[category];
+				if (currentCount == 0L) continue;
+
+				for (final int newTermite : rules[category]) {
+					next[newTermite] += currentCount;
+				}
+			}
+
+			final long[] swap = counts;
+			counts = next;
+			next = swap;
+		}
+
+		return Arrays.stream(counts).sum();
+	}
+	private static TermiteNotes quest11ParseNotes(final String input) {
+		final SymbolTable symbols = new SymbolTable();
+		int[][] rules = new int[16][];
+
+		final Cursor cursor = new Cursor(input);
+		cursor.skipLineBreaks();
+		while (cursor.hasMore()) {
+			final int category = cursor.readIdent(symbols);
+			final int[] newTermites = cursor.expect(':').readIdentList(',', symbols);
+			cursor.expectEndOfLine().skipLineBreaks();
+
+			if (symbols.size() > rules.length) {
+				rules = Arrays.copyOf(rules, Math.max(rules.length * 2, symbols.size()));
+			}
+			if (rules[category] != null) {
+				throw new RuntimeException("duplicate key");
+			}
+			rules[category] = newTermites;
+		}
+
+		return new TermiteNotes(symbols, Arrays.copyOf(rules, symbols.size()));
+	}
+
+	public static void test() {
+		expect(quest11("""
+			A:B,C
+			B:C,A
+			C:A
+			""", 4, "A"), 8L);
+		expect(quest11Part3("""
+			A:B,C
+			B:C,A,A
+			C:A
+			"""), 268815L);
+	}
+
+	private record TermiteNotes(SymbolTable symbols, int[][] rules) {}
+}
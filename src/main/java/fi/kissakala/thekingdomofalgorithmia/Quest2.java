@@ -0,0 +1,201 @@
+package fi.kissakala.thekingdomofalgorithmia;
+
+import fi.kissakala.QuestSolver;
+import fi.kissakala.TheKingdomOfAlgorithmia;
+import fi.kissakala.Utils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static fi.kissakala.Utils.*;
+
+/**
+ * <a href="https://everybody.codes/event/2024/quests/2">The Kingdom of Algorithmia, Quest 2</a>
+ */
+public final class Quest2 {
+	private Quest2() {}
+
+	private static final VarHandle LONG_ARRAY = MethodHandles.arrayElementVarHandle(long[].class);
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 2, part = 1)
+	public static final class Part1 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return countRunicWords(input[0], false);
+		}
+	}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 2, part = 2, version = 2)
+	public static final class Part2 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return countRunicSymbols(input[0], false);
+		}
+	}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 2, part = 3, version = 2)
+	public static final class Part3 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return countRunicSymbols(input[0], true);
+		}
+	}
+
+	private static RunicInscriptions quest2Parse(final String input) {
+		final Cursor cursor = new Cursor(input).expect("WORDS:");
+
+		final List<String> words = new ArrayList<>();
+		do {
+			words.add(cursor.readIdent());
+		} while (cursor.tryConsume(','));
+
+		if (!cursor.expectEndOfLine().skipLineBreaks()) {
+			throw new IllegalArgumentException("No inscriptions");
+		}
+		final List<char[]> rows = new ArrayList<>();
+		while (cursor.hasMore()) {
+			rows.add(cursor.readLine());
+			cursor.skipLineBreaks();
+		}
+
+		return new RunicInscriptions(words, rows.toArray(char[][]::new));
+	}
+	private static int countRunicWords(final String input, final boolean doReverseSearch) {
+		final RunicInscriptions inscriptions = quest2Parse(input);
+
+		final List<String> words = new ArrayList<>(inscriptions.words());
+		if (doReverseSearch) {
+			words.addAll(words.stream().map(Utils::reverse).toList());
+		}
+
+		int wordCount = 0;
+		for (final char[] row : inscriptions.grid()) {
+			final String inscription = new String(row);
+
+			for (final String word : words) {
+				int index = 0;
+				while ((index = inscription.indexOf(word, index)) != -1) {
+					wordCount++;
+					index++;
+				}
+			}
+		}
+		return wordCount;
+	}
+	/**
+	 * Count the symbols that belong to at least one runic word, read in both directions.
+	 * Rows and columns are scanned in parallel and coverage is recorded in one shared bitset.
+	 * @param armour Part 3: rows wrap around and words also run vertically (without wrapping)
+	 */
+	private static long countRunicSymbols(final String input, final boolean armour) {
+		final RunicInscriptions inscriptions = quest2Parse(input);
+		final char[][] grid = inscriptions.grid();
+
+		// Words bucketed by their first character, including the reversed words. Sized for the largest first character,
+		// so non-ASCII letters accepted by Cursor.readIdent have buckets too.
+		final int firstChars = inscriptions.words().stream()
+			.mapToInt(word -> Math.max(word.charAt(0), word.charAt(word.length() - 1)) + 1)
+			.max().orElse(0);
+		final char[][][] wordsByFirstChar = new char[Math.max(128, firstChars)][][];
+		for (final String word : inscriptions.words()) {
+			for (final String w : new String[]{word, reverse(word)}) {
+				final char[][] bucket = wordsByFirstChar[w.charAt(0)];
+				final char[][] grown = bucket == null ? new char[1][] : Arrays.copyOf(bucket, bucket.length + 1);
+				grown[grown.length - 1] = w.toCharArray();
+				wordsByFirstChar[w.charAt(0)] = grown;
+			}
+		}
+
+		final int[] rowOffsets = new int[grid.length + 1];
+		for (int y = 0; y < grid.length; y++) {
+			rowOffsets[y + 1] = rowOffsets[y] + grid[y].length;
+			if (armour && grid[y].length != grid[0].length) {
+				throw new IllegalArgumentException("Armour must be rectangular");
+			}
+		}
+		final long[] coverage = new long[(rowOffsets[grid.length] + 63) >>> 6];
+
+		IntStream.range(0, grid.length).parallel().forEach(y -> {
+			final char[] row = grid[y];
+			for (int x = 0; x < row.length; x++) {
+				final char[][] candidates = row[x] < wordsByFirstChar.length ? wordsByFirstChar[row[x]] : null;
+				if (candidates == null) continue;
+
+				word: for (final char[] word : candidates) {
+					if (word.length > row.length || (!armour && x + word.length > row.length)) continue;
+
+					for (int i = 1, cx = x + 1; i < word.length; i++, cx++) {
+						if (cx == row.length) cx = 0;
+						if (row[cx] != word[i]) continue word;
+					}
+					for (int i = 0, cx = x; i < word.length; i++, cx++) {
+						if (cx == row.length) cx = 0;
+						markCovered(coverage, rowOffsets[y] + cx);
+					}
+				}
+			}
+		});
+
+		if (armour && grid.length > 0) {
+			IntStream.range(0, grid[0].length).parallel().forEach(x -> {
+				for (int y = 0; y < grid.length; y++) {
+					final char c = grid[y][x];
+					final char[][] candidates = c < wordsByFirstChar.length ? wordsByFirstChar[c] : null;
+					if (candidates == null) continue;
+
+					word: for (final char[] word : candidates) {
+						if (y + word.length > grid.length) continue;
+
+						for (int i = 1; i < word.length; i++) {
+							if (grid[y + i][x] != word[i]) continue word;
+						}
+						for (int i = 0; i < word.length; i++) {
+							markCovered(coverage, rowOffsets[y + i] + x);
+						}
+					}
+				}
+			});
+		}
+
+		return Arrays.stream(coverage).map(Long::bitCount).sum();
+	}
+	private static void markCovered(final long[] coverage, final int index) {
+		final long bit = 1L << index;
+		if ((coverage[index >>> 6] & bit) == 0L) {
+			LONG_ARRAY.getAndBitwiseOr(coverage, index >>> 6, bit);
+		}
+	}
+
+	public static void test() {
+		Map.of(
+			"AWAKEN THE POWER ADORNED WITH THE FLAMES BRIGHT IRE", 4,
+			"THE FLAME SHIELDED THE HEART OF THE KINGS", 3,
+			"POWE PO WER P OWE R", 2,
+			"THERE IS THE END", 3
+		).forEach((inscription, count) -> expect(countRunicWords("WORDS:THE,OWE,MES,ROD,HER\n\n" + inscription, false), count));
+		expect(
+			countRunicSymbols("WORDS:THE,OWE,MES,ROD,HER,QAQ\n\n" + String.join("\n", List.of(
+				"AWAKEN THE POWE ADORNED WITH THE FLAMES BRIGHT IRE",
+				"THE FLAME SHIELDED THE HEART OF THE KINGS",
+				"POWE PO WER P OWE R",
+				"THERE IS THE END",
+				"QAQAQ"
+			)), false),
+			42L
+		);
+		expect(countRunicSymbols("""
+			WORDS:THE,OWE,MES,ROD,RODEO
+
+			HELWORLT
+			ENIGWDXL
+			TRODEOAL
+			""", true), 10L);
+		expect(countRunicSymbols("WORDS:ABC\n\nCXAB", false), 0L);
+		expect(countRunicSymbols("WORDS:ABC\n\nCXAB", true), 3L);
+		expect(countRunicSymbols("WORDS:ÄÖ,ÅX\n\nÖÄXÅ", false), 4L);
+	}
+
+	private record RunicInscriptions(List<String> words, char[][] grid) {}
+}
@@ -0,0 +1,394 @@
+package fi.kissakala.thekingdomofalgorithmia;
+
+import fi.kissakala.QuestSolver;
+import fi.kissakala.SegmentGrid;
+import fi.kissakala.TheKingdomOfAlgorithmia;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static fi.kissakala.Utils.*;
+
+/**
+ * <a href="https://everybody.codes/event/2024/quests/3">The Kingdom of Algorithmia, Quest 3</a>
+ */
+public final class Quest3 {
+	private Quest3() {}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 3, part = 1, version = 2)
+	public static final class Part1 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return slopeCalculator(input[0], false);
+		}
+
+		@Override
+		public Object solveFile(final Path input, final String... extraInputs) throws IOException {
+			return slopeCalculator(input, false);
+		}
+	}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 3, part = 2, version = 2)
+	public static final class Part2 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return slopeCalculator(input[0], false);
+		}
+
+		@Override
+		public Object solveFile(final Path input, final String... extraInputs) throws IOException {
+			return slopeCalculator(input, false);
+		}
+	}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 3, part = 3, version = 2)
+	public static final class Part3 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return slopeCalculator(input[0], true);
+		}
+
+		@Override
+		public Object solveFile(final Path input, final String... extraInputs) throws IOException {
+			return slopeCalculator(input, true);
+		}
+	}
+
+	/**
+	 * Digs every block whose neighbours are all as deep as it is, one level per generation, until nothing changes
+	 */
+	private static int slopeCalculator(final String input, final boolean diagonal) {
+		final StencilGrid grid = StencilGrid.of(input, c -> c == '#' ? 1 : 0, 0);
+
+		final int generations = grid.run((cells, i, stride) -> {
+			final int depth = cells[i];
+			if (depth == 0
+				|| cells[i - 1] != depth || cells[i + 1] != depth || cells[i - stride] != depth || cells[i + stride] != depth
+				|| diagonal && (cells[i - stride - 1] != depth || cells[i - stride + 1] != depth || cells[i + stride - 1] != depth || cells[i + stride + 1] != depth)
+			) {
+				return depth;
+			}
+			return depth + 1;
+		}, Integer.MAX_VALUE);
+		recordIterations(generations + 1L);
+
+		return Math.toIntExact(grid.sum());
+	}
+
+	/**
+	 * Off-heap {@link #slopeCalculator(String, boolean)} for maps too large for the heap, used when the input is given
+	 * as a file (e.g. large files in {@code --batch}). The map is memory-mapped and the depths are kept in a
+	 * {@link SegmentGrid}.
+	 */
+	private static long slopeCalculator(final Path map, final boolean diagonal) throws IOException {
+		try (final Arena arena = Arena.ofConfined()) {
+			return slopeCalculator(SegmentGrid.mapCharacters(arena, map, c -> c == '#' ? 1 : 0, 0), diagonal);
+		}
+	}
+	/**
+	 * The depth of a block is its distance to the nearest unmined cell (or the edge of the map), Manhattan without and
+	 * Chebyshev with {@param diagonal}. Both are exact with a two-pass distance transform, so the depths are computed in
+	 * place in two linear scans.
+	 */
+	private static long slopeCalculator(final SegmentGrid grid, final boolean diagonal) {
+		final int width = grid.width();
+		final int height = grid.height();
+
+		// Forward pass: neighbours above and to the left
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (grid.get(x, y) == 0) continue;
+
+				int nearest = Math.min(grid.getOrDefault(x - 1, y, 0), grid.getOrDefault(x, y - 1, 0));
+				if (diagonal) {
+					nearest = Math.min(nearest, Math.min(grid.getOrDefault(x - 1, y - 1, 0), grid.getOrDefault(x + 1, y - 1, 0)));
+				}
+				grid.set(x, y, nearest + 1);
+			}
+		}
+
+		// Backward pass: neighbours below and to the right
+		long result = 0L;
+		for (int y = height - 1; y >= 0; y--) {
+			for (int x = width - 1; x >= 0; x--) {
+				final int depth = grid.get(x, y);
+				if (depth == 0) continue;
+
+				int nearest = Math.min(grid.getOrDefault(x + 1, y, 0), grid.getOrDefault(x, y + 1, 0));
+				if (diagonal) {
+					nearest = Math.min(nearest, Math.min(grid.getOrDefault(x + 1, y + 1, 0), grid.getOrDefault(x - 1, y + 1, 0)));
+				}
+				final int newDepth = Math.min(depth, nearest + 1);
+				grid.set(x, y, newDepth);
+				result += newDepth;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Mining map whose cells can be flipped between mined ('#') and unmined ('.') one at a time, keeping every depth
+	 * and the total up to date, so each edit costs about the area whose depth changes instead of the whole map.
+	 * <p>
+	 * Unmining a cell can only make depths smaller: a breadth-first search from the cell lowers its neighbours until
+	 * they are already close enough. Mining a cell can only make depths larger: first the cells that depended on it are
+	 * invalidated, i.e. cells with no other neighbour one level shallower, then just those cells are filled in again from
+	 * the valid cells around them, shallowest first.
+	 */
+	public static final class EditableMap {
+		private final SegmentGrid depths;
+		private final boolean diagonal;
+		private final int[] invalidated; // Edit number that last invalidated each cell
+		private int edits;
+		private long total;
+
+		public EditableMap(final String input, final boolean diagonal) {
+			final String[] rows = LINE_BREAK_PATTERN.split(input.strip());
+			final int width = Arrays.stream(rows).mapToInt(String::length).max().orElse(0);
+			this.depths = SegmentGrid.allocate(Arena.ofAuto(), width, rows.length);
+			for (int y = 0; y < rows.length; y++) {
+				for (int x = 0; x < rows[y].length(); x++) {
+					depths.set(x, y, rows[y].charAt(x) == '#' ? 1 : 0);
+				}
+			}
+			this.diagonal = diagonal;
+			this.invalidated = new int[width * rows.length];
+			this.total = slopeCalculator(depths, diagonal);
+		}
+
+		public long total() {
+			return total;
+		}
+
+		public int depth(final int x, final int y) {
+			return depths.get(x, y);
+		}
+
+		/**
+		 * Mine or unmine the cell at ({@param x}, {@param y})
+		 * @return The new total depth
+		 */
+		public long set(final int x, final int y, final boolean mined) {
+			if (mined != (depths.get(x, y) > 0)) {
+				if (mined) {
+					mine(x, y);
+				}
+				else {
+					unmine(x, y);
+				}
+			}
+			return total;
+		}
+
+		private void unmine(final int x, final int y) {
+			total -= depths.get(x, y);
+			depths.set(x, y, 0);
+
+			final Deque<Integer> queue = new ArrayDeque<>();
+			queue.add(index(x, y));
+			while (!queue.isEmpty()) {
+				final int cell = queue.poll();
+				final int cx = cell % depths.width();
+				final int cy = cell / depths.width();
+				final int lowered = depths.get(cx, cy) + 1;
+				forEachNeighbour(cx, cy, (nx, ny) -> {
+					final int depth = depths.get(nx, ny);
+					if (depth > lowered) {
+						total -= depth - lowered;
+						depths.set(nx, ny, lowered);
+						queue.add(index(nx, ny));
+					}
+				});
+			}
+		}
+
+		private void mine(final int x, final int y) {
+			final int edit = ++edits;
+
+			// Invalidate the cells whose depth was held up only by invalidated cells, reading the old depths
+			final List<Integer> invalid = new ArrayList<>();
+			final Deque<Integer> queue = new ArrayDeque<>();
+			invalidated[index(x, y)] = edit;
+			invalid.add(index(x, y));
+			queue.add(index(x, y));
+			while (!queue.isEmpty()) {
+				final int cell = queue.poll();
+				final int cx = cell % depths.width();
+				final int cy = cell / depths.width();
+				final int dependent = depths.get(cx, cy) + 1;
+				forEachNeighbour(cx, cy, (nx, ny) -> {
+					final int neighbour = index(nx, ny);
+					if (invalidated[neighbour] != edit && depths.get(nx, ny) == dependent && !isSupported(nx, ny, edit)) {
+						invalidated[neighbour] = edit;
+						invalid.add(neighbour);
+						queue.add(neighbour);
+					}
+				});
+			}
+
+			// Fill in the invalidated cells from their valid neighbours, shallowest first
+			final PriorityQueue<Long> frontier = new PriorityQueue<>();
+			for (final int cell : invalid) {
+				final int cx = cell % depths.width();
+				final int cy = cell / depths.width();
+				total -= depths.get(cx, cy);
+				depths.set(cx, cy, Integer.MAX_VALUE);
+			}
+			for (final int cell : invalid) {
+				final int cx = cell % depths.width();
+				final int cy = cell / depths.width();
+				final int[] nearest = {Integer.MAX_VALUE};
+				forEachNeighbourOrOutside(cx, cy, (nx, ny) -> {
+					if (isOutside(nx, ny) || invalidated[index(nx, ny)] != edit) {
+						nearest[0] = Math.min(nearest[0], depths.getOrDefault(nx, ny, 0));
+					}
+				});
+				if (nearest[0] != Integer.MAX_VALUE) {
+					depths.set(cx, cy, nearest[0] + 1);
+					frontier.add((long) (nearest[0] + 1) << 32 | cell);
+				}
+			}
+			while (!frontier.isEmpty()) {
+				final long entry = frontier.poll();
+				final int depth = (int) (entry >>> 32);
+				final int cell = (int) entry;
+				final int cx = cell % depths.width();
+				final int cy = cell / depths.width();
+				if (depths.get(cx, cy) != depth) {
+					continue;
+				}
+				forEachNeighbour(cx, cy, (nx, ny) -> {
+					if (invalidated[index(nx, ny)] == edit && depths.get(nx, ny) > depth + 1) {
+						depths.set(nx, ny, depth + 1);
+						frontier.add((long) (depth + 1) << 32 | index(nx, ny));
+					}
+				});
+			}
+			for (final int cell : invalid) {
+				total += depths.get(cell % depths.width(), cell / depths.width());
+			}
+		}
+
+		/**
+		 * Whether the cell has a neighbour, or the outside, that is valid and one level shallower
+		 */
+		private boolean isSupported(final int x, final int y, final int edit) {
+			final int supporting = depths.get(x, y) - 1;
+			final boolean[] supported = {false};
+			forEachNeighbourOrOutside(x, y, (nx, ny) -> {
+				if (isOutside(nx, ny) ? supporting == 0 : invalidated[index(nx, ny)] != edit && depths.get(nx, ny) == supporting) {
+					supported[0] = true;
+				}
+			});
+			return supported[0];
+		}
+
+		private interface CellVisitor {
+			void visit(int x, int y);
+		}
+
+		private void forEachNeighbourOrOutside(final int x, final int y, final CellVisitor visitor) {
+			visitor.visit(x - 1, y);
+			visitor.visit(x + 1, y);
+			visitor.visit(x, y - 1);
+			visitor.visit(x, y + 1);
+			if (diagonal) {
+				visitor.visit(x - 1, y - 1);
+				visitor.visit(x + 1, y - 1);
+				visitor.visit(x - 1, y + 1);
+				visitor.visit(x + 1, y + 1);
+			}
+		}
+		private void forEachNeighbour(final int x, final int y, final CellVisitor visitor) {
+			forEachNeighbourOrOutside(x, y, (nx, ny) -> {
+				if (!isOutside(nx, ny)) {
+					visitor.visit(nx, ny);
+				}
+			});
+		}
+
+		private boolean isOutside(final int x, final int y) {
+			return x < 0 || y < 0 || x >= depths.width() || y >= depths.height();
+		}
+
+		private int index(final int x, final int y) {
+			return y * depths.width() + x;
+		}
+
+		/**
+		 * @return The map as '#' and '.' rows
+		 */
+		@Override
+		public String toString() {
+			final StringBuilder builder = new StringBuilder();
+			for (int y = 0; y < depths.height(); y++) {
+				for (int x = 0; x < depths.width(); x++) {
+					builder.append(depths.get(x, y) > 0 ? '#' : '.');
+				}
+				builder.append('\n');
+			}
+			return builder.toString();
+		}
+	}
+
+	public static void test() {
+		Map.of(false, 35, true, 29).forEach((diagonal, expectedResult) -> expect(slopeCalculator("""
+			..........
+			..###.##..
+			...####...
+			..######..
+			..######..
+			...####...
+			..........""", diagonal), expectedResult));
+
+		// Edits against recomputing from scratch, including mining the whole map and digging it out again
+		for (final boolean diagonal : List.of(false, true)) {
+			final EditableMap editable = new EditableMap("""
+				..........
+				..###.##..
+				...####...
+				..######..
+				..######..
+				...####...
+				..........""", diagonal);
+			expect(editable.total(), diagonal ? 29L : 35L);
+			expect(editable.set(5, 1, true), (long) slopeCalculator(editable.toString(), diagonal));
+
+			final Random random = new Random(49L);
+			for (int edit = 0; edit < 300; edit++) {
+				final long total = editable.set(random.nextInt(10), random.nextInt(7), edit < 150 ? random.nextInt(4) > 0 : random.nextInt(4) == 0);
+				expect(total, (long) slopeCalculator(editable.toString(), diagonal));
+			}
+		}
+
+		try {
+			final Path map = Files.createTempFile("quest3", ".txt");
+			try {
+				Files.writeString(map, """
+					..........
+					..###.##..
+					...####...
+					..######..
+					..######..
+					...####...
+					..........""");
+				expect(new Part1().solveFile(map), 35L);
+				expect(new Part3().solveFile(map), 29L);
+
+				// Ragged maps give the same answer from a file as from a string
+				final String ragged = "..#\n.###\n.##\n.#";
+				Files.writeString(map, ragged);
+				expect(new Part1().solveFile(map), (long) slopeCalculator(ragged, false));
+				expect(new Part3().solveFile(map), (long) slopeCalculator(ragged, true));
+			} finally {
+				Files.deleteIfExists(map);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package fi.kissakala.thekingdomofalgorithmia;
+
+import fi.kissakala.NumberParser;
+import fi.kissakala.QuestSolver;
+import fi.kissakala.TheKingdomOfAlgorithmia;
+
+import java.util.*;
+
+import static fi.kissakala.Utils.*;
+
+/**
+ * <a href="https://everybody.codes/event/2024/quests/4">The Kingdom of Algorithmia, Quest 4</a>
+ */
+public final class Quest4 {
+	private Quest4() {}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 4, part = 1)
+	public static final class Part1 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return countMiniumHammerStrikes(NumberParser.parseInts(input[0]));
+		}
+	}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 4, part = 2)
+	public static final class Part2 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return countMiniumHammerStrikes(NumberParser.parseInts(input[0]));
+		}
+	}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 4, part = 3)
+	public static final class Part3 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return countMiniumHammerStrikesForPartThree(NumberParser.parseInts(input[0]));
+		}
+	}
+
+	private static int countMiniumHammerStrikes(final int[] input) {
+		final int shortest = Arrays.stream(input).min().orElseThrow();
+		int result = 0;
+		for (final int nail : input) {
+			result += nail - shortest;
+		}
+		return result;
+	}
+	private static long countMiniumHammerStrikesForPartThree(final int[] input) {
+		Arrays.parallelSort(input);
+		final int median = input[input.length / 2];
+
+		long result = 0;
+		for (final int nail : input) {
+			result += Math.abs(nail - median);
+		}
+		return result;
+	}
+
+	public static void test() {
+		expect(countMiniumHammerStrikes(new int[]{3, 4, 7, 8}), 10);
+		expect(countMiniumHammerStrikesForPartThree(new int[]{2, 4, 5, 6, 8}), 8L);
+	}
+}
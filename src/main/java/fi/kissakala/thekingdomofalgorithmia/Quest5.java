@@ -0,0 +1,123 @@
+package fi.kissakala.thekingdomofalgorithmia;
+
+import fi.kissakala.QuestSolver;
+import fi.kissakala.TheKingdomOfAlgorithmia;
+import fi.kissakala.WorkCounter;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static fi.kissakala.Utils.*;
+
+/**
+ * <a href="https://everybody.codes/event/2024/quests/5">The Kingdom of Algorithmia, Quest 5</a>
+ */
+public final class Quest5 {
+	private Quest5() {}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 5, part = 1)
+	public static final class Part1 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return pseudoRandomClapDance(input[0], 1);
+		}
+	}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 5, part = 2)
+	public static final class Part2 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return pseudoRandomClapDance(input[0], 2);
+		}
+	}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 5, part = 3)
+	public static final class Part3 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return pseudoRandomClapDance(input[0], 3);
+		}
+	}
+
+	private static final WorkCounter CLAP_ROUNDS = WorkCounter.ofIterations("Clap dance rounds");
+
+	private static long pseudoRandomClapDance(final String input, final int part) {
+		final Integer[][] grid = stringAs2DArray(input, WHITESPACE_PATTERN, Integer::parseInt, Integer.class);
+		@SuppressWarnings("unchecked")
+		final LinkedList<Integer>[] columns = new LinkedList[grid[0].length]; // Expects square grid
+
+		for (Integer[] row : grid) {
+			for (int column = 0; column < row.length; column++) {
+				if (columns[column] == null) {
+					columns[column] = new LinkedList<>();
+				}
+				columns[column].addLast(row[column]);
+			}
+		}
+
+		Map<Long, Integer> shoutCounts = new HashMap<>();
+		long highestShout = 0L;
+		int newHighestShoutCounter = 10_000; // Let's naively assume the cycle is not longer than 10_000...
+
+		// The rounds are counted once on each way out, not per round
+		for (int round = 0; true; round++) {
+			final int clapperColumn = round % columns.length;
+			final int clapper = columns[clapperColumn].removeFirst();
+
+			// The Clapper moves to the beginning of the column to their right
+			final LinkedList<Integer> currentColumn = columns[(clapperColumn + 1) % columns.length];
+
+			final BouncerResult bouncerResult = bouncer(currentColumn.size(), Math.max(0, clapper - 1), DIRECTION.DOWN);
+			if (bouncerResult.direction() == DIRECTION.DOWN) {
+				currentColumn.add(bouncerResult.index(), clapper);
+			}
+			else {
+				currentColumn.add(bouncerResult.index() + 1, clapper);
+			}
+
+			final Long shout = Arrays.stream(columns)
+				.map(column -> column.getFirst().toString())
+				.collect(Collectors.collectingAndThen(Collectors.joining(), Long::parseLong));
+
+			// Part 1: What is the number shouted at the end of the 10th round?
+			if (part == 1 && round == 9) {
+				CLAP_ROUNDS.add(round + 1L);
+				return shout;
+			}
+
+			// Part 2: What do you get if you multiply the first number shouted for the 2024th time by the total number of dance rounds?
+			if (part == 2 && shoutCounts.compute(shout, (_, current) -> current == null ? 1 : current + 1) == 2024) {
+				CLAP_ROUNDS.add(round + 1L);
+				return shout * (round + 1);
+			}
+
+			if (part == 3) {
+				if (shout > highestShout) {
+					highestShout = shout;
+					newHighestShoutCounter = 10_000;
+				}
+				else if (--newHighestShoutCounter <= 0) {
+					CLAP_ROUNDS.add(round + 1L);
+					return highestShout;
+				}
+			}
+		}
+	}
+
+	public static void test() {
+		expect(pseudoRandomClapDance("""
+			2 3 4 5
+			3 4 5 2
+			4 5 2 3
+			5 2 3 4
+			""", 1), 2323L);
+		expect(pseudoRandomClapDance("""
+			2 3 4 5
+			6 7 8 9
+			""", 2), 50877075L);
+		expect(pseudoRandomClapDance("""
+			2 3 4 5
+			6 7 8 9
+			""", 3), 6584L);
+	}
+}
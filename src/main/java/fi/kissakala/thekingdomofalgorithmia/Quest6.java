@@ -0,0 +1,148 @@
+package fi.kissakala.thekingdomofalgorithmia;
+
+import fi.kissakala.QuestSolver;
+import fi.kissakala.TheKingdomOfAlgorithmia;
+
+import java.util.*;
+
+import static fi.kissakala.Utils.*;
+
+/**
+ * <a href="https://everybody.codes/event/2024/quests/6">The Kingdom of Algorithmia, Quest 6</a>
+ */
+public final class Quest6 {
+	private Quest6() {}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 6, part = 1)
+	public static final class Part1 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return pathToMostPowerfulFruit(input[0], false);
+		}
+	}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 6, part = 2)
+	public static final class Part2 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return pathToMostPowerfulFruit(input[0], true);
+		}
+	}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 6, part = 3)
+	public static final class Part3 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return pathToMostPowerfulFruit(input[0], true);
+		}
+	}
+
+	private static String pathToMostPowerfulFruit(final String input, final boolean firstLettersOnly) {
+		final FruitTree fruitTree = quest6ParseTree(input);
+		final int root = fruitTree.symbols().idOf("RR");
+		final int nodeCount = fruitTree.symbols().size();
+
+		final int[] parent = new int[nodeCount];
+		final int[] depth = new int[nodeCount];
+		final int[] fruitsAtDepth = new int[nodeCount + 2];
+		final int[] fruitParentAtDepth = new int[nodeCount + 2];
+		Arrays.fill(parent, -1);
+
+		// Breadth-first from the root. Each '@' is a leaf one level below the node that carries it
+		final int[] queue = new int[nodeCount];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = root;
+		while (head < tail) {
+			final int node = queue[head++];
+
+			if (fruitTree.fruits()[node] > 0) {
+				fruitsAtDepth[depth[node] + 1] += fruitTree.fruits()[node];
+				fruitParentAtDepth[depth[node] + 1] = node;
+			}
+			for (final int child : fruitTree.children()[node]) {
+				parent[child] = node;
+				depth[child] = depth[node] + 1;
+				queue[tail++] = child;
+			}
+		}
+
+		for (int d = 1; d < fruitsAtDepth.length; d++) {
+			if (fruitsAtDepth[d] == 1) {
+				final Deque<String> path = new ArrayDeque<>();
+				path.push("@");
+				for (int node = fruitParentAtDepth[d]; node != -1; node = parent[node]) {
+					final String name = fruitTree.symbols().name(node);
+					path.push(firstLettersOnly ? String.valueOf(name.charAt(0)) : name);
+				}
+				return String.join("", path);
+			}
+		}
+		return "";
+	}
+	private static FruitTree quest6ParseTree(final String input) {
+		final SymbolTable symbols = new SymbolTable();
+		final int bug = symbols.intern("BUG");
+		final int ant = symbols.intern("ANT");
+
+		final List<int[]> parsedRows = new ArrayList<>();
+		int[] parsedRow = new int[16]; // [node, fruits, children...]
+
+		final Cursor cursor = new Cursor(input);
+		cursor.skipLineBreaks();
+		while (cursor.hasMore()) {
+			final int node = cursor.readIdent(symbols);
+			cursor.expect(':');
+
+			parsedRow[0] = node;
+			parsedRow[1] = 0;
+			int size = 2;
+			do {
+				if (cursor.tryConsume('@')) {
+					parsedRow[1]++;
+					continue;
+				}
+
+				final int link = cursor.readIdent(symbols);
+				if (link == bug || link == ant) {
+					continue;
+				}
+				if (size == parsedRow.length) {
+					parsedRow = Arrays.copyOf(parsedRow, size * 2);
+				}
+				parsedRow[size++] = link;
+			} while (cursor.tryConsume(','));
+			cursor.expectEndOfLine().skipLineBreaks();
+
+			if (node != bug && node != ant) {
+				parsedRows.add(Arrays.copyOf(parsedRow, size));
+			}
+		}
+
+		final int[][] children = new int[symbols.size()][];
+		final int[] fruits = new int[symbols.size()];
+		Arrays.fill(children, new int[0]);
+		for (final int[] row : parsedRows) {
+			children[row[0]] = Arrays.copyOfRange(row, 2, row.length);
+			fruits[row[0]] = row[1];
+		}
+
+		return new FruitTree(symbols, children, fruits);
+	}
+
+	public static void test() {
+		Map.of(false, "RRB@", true, "RB@").forEach((firstLettersOnly, expectedResult) -> expect(pathToMostPowerfulFruit("""
+			RR:A,B,C
+			A:D,E
+			B:F,@
+			C:G,H
+			D:@
+			E:@
+			F:@
+			G:@
+			H:@
+			""", firstLettersOnly), expectedResult));
+	}
+
+	private record FruitTree(SymbolTable symbols, int[][] children, int[] fruits) {}
+}
@@ -0,0 +1,99 @@
+package fi.kissakala.thekingdomofalgorithmia;
+
+import fi.kissakala.QuestSolver;
+import fi.kissakala.RaceSimulator;
+import fi.kissakala.ShardRunner;
+import fi.kissakala.TheKingdomOfAlgorithmia;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static fi.kissakala.Utils.*;
+
+/**
+ * <a href="https://everybody.codes/event/2024/quests/7">The Kingdom of Algorithmia, Quest 7</a>
+ */
+public final class Quest7 {
+	private Quest7() {}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 7, part = 1, version = 2)
+	public static final class Part1 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return getRankingOfPlans(input[0], null);
+		}
+	}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 7, part = 2, version = 2, extraInputs = TheKingdomOfAlgorithmia.EVENT + "/Quest7Racetracks/Part2.txt")
+	public static final class Part2 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return getRankingOfPlans(input[0], quest7Track(input[1]));
+		}
+	}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 7, part = 3, version = 2, extraInputs = TheKingdomOfAlgorithmia.EVENT + "/Quest7Racetracks/Part3.txt")
+	public static final class Part3 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) throws Exception {
+			return getNumberOfWinningPlans(input[0], quest7Track(input[1]));
+		}
+	}
+
+	private static char[] quest7Track(final String racetrack) {
+		return getShortestPathIn2dGrid(stringAs2DArray(racetrack, null, s -> s.charAt(0), Character.class), new XY(0, 0), new XY(0, 0), ' ')
+			.toCharArray();
+	}
+	private static String getRankingOfPlans(final String input, final char[] track) {
+		// Names stay parallel to the plans, so a repeated name is ranked once per row like any other
+		final List<String> knights = new ArrayList<>();
+		final List<char[]> plans = new ArrayList<>();
+
+		final Cursor cursor = new Cursor(input);
+		cursor.skipLineBreaks();
+		while (cursor.hasMore()) {
+			knights.add(cursor.readIdent());
+			plans.add(cursor.expect(':').readCharList(','));
+			cursor.expectEndOfLine().skipLineBreaks();
+		}
+
+		final RaceSimulator simulator = new RaceSimulator(track, 10);
+		return Arrays.stream(simulator.ranking(plans))
+			.mapToObj(knights::get)
+			.collect(Collectors.joining());
+	}
+	private static long getNumberOfWinningPlans(final String input, final char[] track) throws Exception {
+		final Cursor cursor = new Cursor(input);
+		cursor.readIdent();
+		final char[] rivalPlan = cursor.expect(':').readCharList(',');
+		cursor.skipLineBreaks();
+		if (cursor.hasMore()) {
+			throw new IllegalArgumentException("Bad input: " + input);
+		}
+
+		final RaceSimulator simulator = new RaceSimulator(track, 2024);
+		final long rivalResult = simulator.essence(rivalPlan);
+
+		return simulator.countPlansAbove(rivalResult, 5, 3, 3, ShardRunner.getDefault());
+	}
+
+	public static void test() {
+		expect(getRankingOfPlans("""
+			A:+,-,=,=
+			B:+,=,-,+
+			C:=,-,+,+
+			D:=,=,=,+
+			""", null), "BDCA");
+		expect(getRankingOfPlans("""
+			A:+,-,=,=
+			B:+,=,-,+
+			C:=,-,+,+
+			D:=,=,=,+
+			""", ("S+===" + "+" + reverse("=+=-+") + "-").toCharArray()), "DCBA");
+		expect(getRankingOfPlans("""
+			A:+,-,=,=
+			B:+,=,-,+
+			A:=,=,=,+
+			""", null), "BAA");
+	}
+}
@@ -0,0 +1,59 @@
+package fi.kissakala.thekingdomofalgorithmia;
+
+import fi.kissakala.QuestSolver;
+import fi.kissakala.TheKingdomOfAlgorithmia;
+
+import static fi.kissakala.Utils.*;
+
+/**
+ * <a href="https://everybody.codes/event/2024/quests/8">The Kingdom of Algorithmia, Quest 8</a>
+ */
+public final class Quest8 {
+	private Quest8() {}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 8, part = 1)
+	public static final class Part1 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return solveQuest8Part1(Integer.parseInt(input[0]));
+		}
+	}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 8, part = 2)
+	public static final class Part2 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return solveQuest8Part2(Integer.parseInt(input[0]), 1111, 20240000);
+		}
+	}
+
+	private static int solveQuest8Part1(final int input) {
+		int stonesLeft = input - 1;
+		int currentWidth = 1;
+
+		while (stonesLeft > 0) {
+			currentWidth += 2;
+			stonesLeft -= currentWidth;
+		}
+
+		return currentWidth * Math.abs(stonesLeft);
+	}
+	private static int solveQuest8Part2(final int numberOfPriests, final int numberOfAcolytes, final int availableBlocks) {
+		int stonesLeft = availableBlocks - 1;
+		int currentWidth = 1;
+		int currentThickness = 1;
+
+		while (stonesLeft > 0) {
+			currentThickness = (currentThickness * numberOfPriests) % numberOfAcolytes;
+			currentWidth += 2;
+			stonesLeft -= currentWidth * currentThickness;
+		}
+
+		return currentWidth * Math.abs(stonesLeft);
+	}
+
+	public static void test() {
+		expect(solveQuest8Part1(13), 21);
+		expect(solveQuest8Part2(3, 5, 50), 27);
+	}
+}
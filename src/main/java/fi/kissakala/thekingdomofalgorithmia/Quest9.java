@@ -0,0 +1,77 @@
+package fi.kissakala.thekingdomofalgorithmia;
+
+import fi.kissakala.NumberParser;
+import fi.kissakala.QuestSolver;
+import fi.kissakala.TheKingdomOfAlgorithmia;
+
+import java.util.*;
+
+import static fi.kissakala.Utils.*;
+
+/**
+ * <a href="https://everybody.codes/event/2024/quests/9">The Kingdom of Algorithmia, Quest 9</a>
+ */
+public final class Quest9 {
+	private Quest9() {}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 9, part = 1)
+	public static final class Part1 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return solveQuest9(NumberParser.parseInts(input[0]), List.of(1, 3, 5, 10));
+		}
+	}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 9, part = 2)
+	public static final class Part2 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return solveQuest9(NumberParser.parseInts(input[0]), List.of(1, 3, 5, 10, 15, 16, 20, 24, 25, 30));
+		}
+	}
+
+	@QuestSolver.Part(event = TheKingdomOfAlgorithmia.EVENT, quest = 9, part = 3)
+	public static final class Part3 implements QuestSolver {
+		@Override
+		public Object solve(final String... input) {
+			return solveQuest9Part3(NumberParser.parseInts(input[0]), List.of(1, 3, 5, 10, 15, 16, 20, 24, 25, 30, 37, 38, 49, 50, 74, 75, 100, 101));
+		}
+	}
+
+	private static int solveQuest9(final int[] notes, final List<Integer> stamps) {
+		final int maxTarget = Arrays.stream(notes).max().orElseThrow();
+		final int[] dp = computeUnboundedMinCoinDp(maxTarget, stamps.toArray(Integer[]::new));
+
+		int result = 0;
+		for (final int target : notes) {
+			result += dp[target];
+		}
+		return result;
+	}
+	private static int solveQuest9Part3(final int[] notes, final List<Integer> stamps) {
+		final int maxTarget = Arrays.stream(notes).max().orElseThrow();
+		final int[] dp = computeUnboundedMinCoinDp(maxTarget, stamps.toArray(Integer[]::new));
+
+		int total = 0;
+		for (final int target : notes) {
+			final int low = Math.max(1, (target - 100 + 1) / 2);
+			final int high = Math.min(target - 1, (target + 100) / 2);
+
+			int best = Integer.MAX_VALUE;
+			for (int x = low; x <= high; x++) {
+				int y = target - x;
+				best = Math.min(best, dp[x] + dp[y]);
+			}
+
+			total += best;
+		}
+
+		return total;
+	}
+
+	public static void test() {
+		expect(solveQuest9(new int[]{2, 4, 7, 16}, List.of(1, 3, 5, 10)), 10);
+		expect(solveQuest9(new int[]{33, 41, 55, 99}, List.of(1, 3, 5, 10, 15, 16, 20, 24, 25, 30)), 10);
+		expect(solveQuest9Part3(new int[]{156488, 352486, 546212}, List.of(1, 3, 5, 10, 15, 16, 20, 24, 25, 30, 37, 38, 49, 50, 74, 75, 100, 101)), 10449);
+	}
+}